@@ -0,0 +1,99 @@
+package com.sinha.id3.benchmark;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sinha.id3.util.ColumnGainCalculator;
+import com.sinha.id3.util.ColumnarDataset;
+import com.sinha.id3.util.EntropyUtil;
+import com.sinha.id3.util.InformationGainCalculator;
+import com.sinha.id3.util.InputSet;
+import com.sinha.id3.util.SplitCandidate;
+import com.sinha.id3.util.Utility;
+
+/*
+ * Entropy, information gain of a single split and best split search of one
+ * attribute, for the InputSet (map of lists) and columnar code paths
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EntropyBenchmark {
+
+	@Param({ "1000", "10000", "100000" })
+	public int rows;
+
+	// Attribute used for split benchmarks
+	private static final String ATTRIBUTE = "a0";
+
+	// Legacy class value -> attribute values map of ATTRIBUTE
+	private Map<Number, List<Number>> classValues;
+	private List<Number> splitValue;
+	private double legacyEntropy;
+
+	private ColumnarDataset data;
+	private int[] allRows;
+	private int[] classCounts;
+	private double columnEntropy;
+
+	@Setup
+	public void setup() {
+		SyntheticData synthetic = SyntheticData.generate(rows, 4, 42L);
+		List<InputSet> inputList = synthetic.toInputSets();
+		classValues = Utility.partitionMap(inputList, Collections.singletonList(ATTRIBUTE)).get(ATTRIBUTE);
+		splitValue = Collections.singletonList(50d);
+		legacyEntropy = EntropyUtil.calculateEntropy(classValues);
+
+		data = synthetic.toColumnar();
+		allRows = Utility.allRows(data.size());
+		classCounts = Utility.classCounts(data, allRows);
+		columnEntropy = EntropyUtil.calculateEntropy(classCounts);
+	}
+
+	@Benchmark
+	public double entropyMap() {
+		return EntropyUtil.calculateEntropy(classValues);
+	}
+
+	@Benchmark
+	public double entropyCounts() {
+		return EntropyUtil.calculateEntropy(Utility.classCounts(data, allRows));
+	}
+
+	@Benchmark
+	public Map<Double, String> gainBySplitMap() {
+		return EntropyUtil.gainBySplit(classValues, splitValue, legacyEntropy);
+	}
+
+	@Benchmark
+	public double gainBySplitColumnar() {
+		return EntropyUtil.gainBySplit(data, allRows, data.indexOf(ATTRIBUTE), 50d, columnEntropy);
+	}
+
+	@Benchmark
+	public Map<Double, String> bestSplitMap() throws Exception {
+		return new InformationGainCalculator(ATTRIBUTE, classValues).call();
+	}
+
+	@Benchmark
+	public SplitCandidate bestSplitColumnar() throws Exception {
+		return new ColumnGainCalculator(data, allRows, data.indexOf(ATTRIBUTE)).call();
+	}
+}
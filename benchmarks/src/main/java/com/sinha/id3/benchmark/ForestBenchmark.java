@@ -0,0 +1,117 @@
+package com.sinha.id3.benchmark;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.sinha.id3.util.BatchScorer;
+import com.sinha.id3.util.BuildPool;
+import com.sinha.id3.util.ColumnarDataset;
+import com.sinha.id3.util.CompiledTree;
+import com.sinha.id3.util.CrossFoldValidation;
+import com.sinha.id3.util.ForestUtils;
+import com.sinha.id3.util.InputSet;
+import com.sinha.id3.util.Node;
+import com.sinha.id3.util.Utility;
+
+/*
+ * Forest voting over every row of a data set: per tree map tally as done for
+ * InputSet lists, per row vote of compiled trees and tree major batch scoring.
+ * Throughput reported per voted row
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ForestBenchmark {
+
+	// Rows voted per invocation, must match @OperationsPerInvocation
+	private static final int ROWS = 10000;
+
+	@Param({ "10", "50" })
+	public int estimators;
+
+	@Param({ "8" })
+	public int attributeCount;
+
+	// Attributes sampled for each tree
+	@Param({ "4" })
+	public int attributeSize;
+
+	private List<InputSet> inputList;
+	private ColumnarDataset data;
+	private List<Node> forest;
+	private CompiledTree[] compiled;
+	private int[] votes;
+	private int[] voteCounts;
+	private ForkJoinPool pool;
+
+	@Setup
+	public void setup() {
+		SyntheticData synthetic = SyntheticData.generate(ROWS, attributeCount, 42L);
+		inputList = synthetic.toInputSets();
+		data = synthetic.toColumnar();
+		pool = BuildPool.newPool();
+		forest = ForestUtils.generateForest(data, Utility.allRows(data.size()), synthetic.getAttributes(),
+				estimators, attributeSize, pool);
+		compiled = ForestUtils.compileForest(forest, data);
+		votes = new int[data.classCount()];
+		voteCounts = new int[ROWS * data.classCount()];
+	}
+
+	@TearDown
+	public void tearDown() {
+		pool.shutdown();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public void mapTally(Blackhole blackhole) {
+		for (InputSet input : inputList) {
+			Map<String, Integer> decisionMap = new HashMap<>();
+			for (Node node : forest) {
+				decisionMap.merge(CrossFoldValidation.predict(node, input.getAttributeValues()), 1, Integer::sum);
+			}
+			blackhole.consume(decisionMap);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public void compiledRowVote(Blackhole blackhole) {
+		for (int row = 0; row < ROWS; row++) {
+			blackhole.consume(ForestUtils.vote(compiled, data, row, votes));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public int[] compiledBatchSequential() {
+		return BatchScorer.predict(compiled, data, voteCounts, null);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public int[] compiledBatchParallel() {
+		return BatchScorer.predict(compiled, data, voteCounts, pool);
+	}
+}
@@ -0,0 +1,107 @@
+package com.sinha.id3.benchmark;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sinha.id3.util.BuildPool;
+import com.sinha.id3.util.ColumnGainCalculator;
+import com.sinha.id3.util.ColumnarDataset;
+import com.sinha.id3.util.Impurity;
+import com.sinha.id3.util.Node;
+import com.sinha.id3.util.SplitCandidate;
+import com.sinha.id3.util.TreeBuildConfig;
+import com.sinha.id3.util.TreeUtility;
+import com.sinha.id3.util.Utility;
+
+/*
+ * Impurity of class counts, best split search of one attribute and greedy tree
+ * construction with each Impurity
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ImpurityBenchmark {
+
+	@Param({ "ENTROPY", "TABLE_ENTROPY", "GINI" })
+	public Impurity impurity;
+
+	@Param({ "10000", "100000" })
+	public int rows;
+
+	// Attribute used for split benchmark
+	private static final String ATTRIBUTE = "a0";
+
+	private ColumnarDataset data;
+	private int[] allRows;
+	private TreeBuildConfig config;
+	private ForkJoinPool pool;
+
+	// Class counts of left side of every split value of ATTRIBUTE, as swept by
+	// split search
+	private int[][] sweptCounts;
+	private int[] sweptSizes;
+
+	@Setup
+	public void setup() {
+		SyntheticData synthetic = SyntheticData.generate(rows, 4, 42L);
+		data = synthetic.toColumnar();
+		allRows = Utility.allRows(data.size());
+		config = TreeBuildConfig.DEFAULT.withImpurity(impurity);
+		pool = BuildPool.newPool();
+
+		// Rows in value order of ATTRIBUTE, counts after each
+		double[] column = data.getColumn(data.indexOf(ATTRIBUTE));
+		int[] sorted = IntStream.range(0, data.size()).boxed()
+				.sorted((i, j) -> Double.compare(column[i], column[j])).mapToInt(Integer::intValue).toArray();
+		int[] counts = new int[data.classCount()];
+		sweptCounts = new int[sorted.length][];
+		sweptSizes = new int[sorted.length];
+		for (int i = 0; i < sorted.length; i++) {
+			counts[data.getClassCodes()[sorted[i]]]++;
+			sweptCounts[i] = counts.clone();
+			sweptSizes[i] = i + 1;
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		pool.shutdown();
+	}
+
+	@Benchmark
+	public double impurityOfCounts() {
+		double sum = 0d;
+		for (int i = 0; i < sweptCounts.length; i++) {
+			sum += impurity.impurity(sweptCounts[i], sweptSizes[i]);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public SplitCandidate bestSplitColumnar() throws Exception {
+		return new ColumnGainCalculator(data, allRows, 0, allRows.length, data.indexOf(ATTRIBUTE), 1, impurity)
+				.call();
+	}
+
+	@Benchmark
+	public Node greedyColumnar() {
+		return TreeUtility.generateTreeGreedySplit(data.getAttributes(), data, allRows, config, pool);
+	}
+}
@@ -0,0 +1,93 @@
+package com.sinha.id3.benchmark;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.sinha.id3.util.BatchScorer;
+import com.sinha.id3.util.BuildPool;
+import com.sinha.id3.util.ColumnarDataset;
+import com.sinha.id3.util.CompiledTree;
+import com.sinha.id3.util.CrossFoldValidation;
+import com.sinha.id3.util.InputSet;
+import com.sinha.id3.util.Node;
+import com.sinha.id3.util.TreeUtility;
+
+/*
+ * Single tree prediction of every row of a data set. Throughput reported per
+ * predicted row
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PredictBenchmark {
+
+	// Rows predicted per invocation, must match @OperationsPerInvocation
+	private static final int ROWS = 10000;
+
+	@Param({ "4", "16" })
+	public int attributeCount;
+
+	private List<InputSet> inputList;
+	private ColumnarDataset data;
+	private Node tree;
+	private CompiledTree compiled;
+
+	@Setup
+	public void setup() {
+		SyntheticData synthetic = SyntheticData.generate(ROWS, attributeCount, 42L);
+		inputList = synthetic.toInputSets();
+		data = synthetic.toColumnar();
+		ForkJoinPool pool = BuildPool.newPool();
+		tree = TreeUtility.generateTreeGreedySplit(synthetic.getAttributes(), data, pool);
+		pool.shutdown();
+		compiled = CompiledTree.compile(tree, data);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public void nodeMap(Blackhole blackhole) {
+		for (InputSet input : inputList) {
+			blackhole.consume(CrossFoldValidation.predict(tree, input.getAttributeValues()));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public void nodeColumnar(Blackhole blackhole) {
+		for (int row = 0; row < ROWS; row++) {
+			blackhole.consume(CrossFoldValidation.predictCode(tree, data, row));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public void compiledRow(Blackhole blackhole) {
+		for (int row = 0; row < ROWS; row++) {
+			blackhole.consume(compiled.predict(data, row));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROWS)
+	public int[] compiledBatch() {
+		return BatchScorer.predict(compiled, data);
+	}
+}
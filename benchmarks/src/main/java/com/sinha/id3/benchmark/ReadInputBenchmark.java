@@ -0,0 +1,78 @@
+package com.sinha.id3.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sinha.id3.util.ColumnarDataset;
+import com.sinha.id3.util.CsvColumnParser;
+import com.sinha.id3.util.DatasetCache;
+import com.sinha.id3.util.InputSet;
+import com.sinha.id3.util.ReadInput;
+
+/*
+ * Loading a data set file: line reader producing InputSet lists, memory mapped
+ * column parser and binary cache load
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReadInputBenchmark {
+
+	@Param({ "10000", "100000" })
+	public int rows;
+
+	@Param({ "4", "16" })
+	public int attributeCount;
+
+	private Path file;
+	private List<String> attributes;
+
+	@Setup
+	public void setup() throws IOException {
+		SyntheticData synthetic = SyntheticData.generate(rows, attributeCount, 42L);
+		attributes = synthetic.getAttributes();
+		file = Files.createTempFile("id3-bench", ".csv");
+		synthetic.writeCsv(file);
+		DatasetCache.write(file.toString(), CsvColumnParser.parse(file.toString(), attributes));
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(DatasetCache.cacheFile(file.toString()).toPath());
+		Files.deleteIfExists(file);
+	}
+
+	@Benchmark
+	public List<InputSet> readFile() throws IOException {
+		return ReadInput.readFile(file.toString(), attributes);
+	}
+
+	@Benchmark
+	public ColumnarDataset parseColumnar() throws IOException {
+		return CsvColumnParser.parse(file.toString(), attributes);
+	}
+
+	@Benchmark
+	public ColumnarDataset loadCache() {
+		return DatasetCache.load(file.toString(), attributes);
+	}
+}
@@ -0,0 +1,163 @@
+package com.sinha.id3.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sinha.id3.util.LatencyHistogram;
+
+/*
+ * Closed loop load generator for ScoringServer. Each client thread sends
+ * requests of random feature vectors back to back over a kept alive
+ * connection. After warm up the server counters are reset, so client side and
+ * server side throughput and p50/p99 latency reported at the end cover the
+ * same requests. Run with
+ * java -cp target/benchmarks.jar com.sinha.id3.benchmark.ScoringLoadGenerator
+ */
+public class ScoringLoadGenerator {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ScoringLoadGenerator.class);
+
+	// Optional Arguments -
+	// --url=http://localhost:8080
+	// --attributes=6 -> values per feature vector, as many as model attributes
+	// --clients=32 -> concurrent client threads
+	// --vectors=1 -> feature vectors per request
+	// --warmup=5 -> seconds before measuring
+	// --seconds=20 -> seconds measured
+	public static void main(String[] args) throws Exception {
+		String url = "http://localhost:8080";
+		int attributes = 6;
+		int clients = 32;
+		int vectors = 1;
+		int warmupSeconds = 5;
+		int seconds = 20;
+		for (String arg : args) {
+			String value = arg.substring(arg.indexOf('=') + 1);
+			if (arg.startsWith("--url=")) {
+				url = value;
+			} else if (arg.startsWith("--attributes=")) {
+				attributes = Integer.parseInt(value);
+			} else if (arg.startsWith("--clients=")) {
+				clients = Integer.parseInt(value);
+			} else if (arg.startsWith("--vectors=")) {
+				vectors = Integer.parseInt(value);
+			} else if (arg.startsWith("--warmup=")) {
+				warmupSeconds = Integer.parseInt(value);
+			} else if (arg.startsWith("--seconds=")) {
+				seconds = Integer.parseInt(value);
+			} else {
+				LOGGER.error("Unknown argument: {}", arg);
+				System.exit(-1);
+			}
+		}
+
+		URL predictUrl = new URL(url + "/predict");
+		LatencyHistogram latency = new LatencyHistogram();
+		LongAdder failures = new LongAdder();
+		long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+		long end = warmupEnd + TimeUnit.SECONDS.toNanos(seconds);
+		ExecutorService executor = Executors.newFixedThreadPool(clients);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int client = 0; client < clients; client++) {
+			byte[] body = requestBody(new Random(client), vectors, attributes);
+			futures.add(executor.submit(() -> {
+				while (true) {
+					long start = System.nanoTime();
+					if (start >= end) {
+						return null;
+					}
+					boolean ok = post(predictUrl, body);
+					if (start >= warmupEnd) {
+						if (ok) {
+							latency.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+						} else {
+							failures.increment();
+						}
+					}
+				}
+			}));
+		}
+
+		TimeUnit.NANOSECONDS.sleep(Math.max(0, warmupEnd - System.nanoTime()));
+		get(new URL(url + "/stats?reset"));
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		executor.shutdown();
+
+		long requests = latency.count();
+		LOGGER.info("Client: {} clients, {} vectors per request, {} requests, {} failed", clients, vectors,
+				requests, failures.sum());
+		LOGGER.info("Client: {} requests/s, {} vectors/s, p50 {}us, p99 {}us", requests / seconds,
+				requests * vectors / seconds, latency.percentile(0.5), latency.percentile(0.99));
+		LOGGER.info("Server:\n{}", get(new URL(url + "/stats")));
+	}
+
+	// Request body of random feature vectors, values uniform in [0, 100) as in
+	// SyntheticData
+	private static byte[] requestBody(Random random, int vectors, int attributes) {
+		StringBuilder body = new StringBuilder();
+		for (int vector = 0; vector < vectors; vector++) {
+			for (int attr = 0; attr < attributes; attr++) {
+				if (attr > 0) {
+					body.append(',');
+				}
+				body.append(Math.floor(random.nextDouble() * 10000d) / 100d);
+			}
+			body.append('\n');
+		}
+		return body.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	// Send request, read whole response so connection is reused. False unless
+	// status 200
+	private static boolean post(URL url, byte[] body) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+		connection.setRequestMethod("POST");
+		connection.setDoOutput(true);
+		try (OutputStream out = connection.getOutputStream()) {
+			out.write(body);
+		}
+		int status = connection.getResponseCode();
+		try (InputStream in = status == 200 ? connection.getInputStream() : connection.getErrorStream()) {
+			readAll(in);
+		}
+		return status == 200;
+	}
+
+	private static String get(URL url) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+		try (InputStream in = connection.getInputStream()) {
+			return readAll(in);
+		}
+	}
+
+	private static String readAll(InputStream in) throws IOException {
+		if (null == in) {
+			return "";
+		}
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int read;
+		while ((read = in.read(buffer)) != -1) {
+			bytes.write(buffer, 0, read);
+		}
+		return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,133 @@
+package com.sinha.id3.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.sinha.id3.util.ClassDictionary;
+import com.sinha.id3.util.ColumnarDataset;
+import com.sinha.id3.util.InputSet;
+
+/*
+ * Generates reproducible data sets for benchmarks. Attribute values are
+ * uniform in [0, 100) with two decimals, so values repeat like in measured
+ * data. Class (1, 2 or 3) is a noisy function of the first attributes, which
+ * gives trees of realistic depth instead of a single split or pure noise
+ */
+public class SyntheticData {
+
+	public static final int CLASS_COUNT = 3;
+
+	// Share of instances whose class is drawn at random
+	private static final double NOISE = 0.1d;
+
+	private final List<String> attributes;
+
+	// values[row][attribute]
+	private final double[][] values;
+
+	// Class value of each row, 1 to CLASS_COUNT
+	private final int[] classes;
+
+	private SyntheticData(List<String> attributes, double[][] values, int[] classes) {
+		this.attributes = attributes;
+		this.values = values;
+		this.classes = classes;
+	}
+
+	// Generate data set with given number of rows and attributes. Same seed gives
+	// same data set
+	public static SyntheticData generate(int rows, int attributeCount, long seed) {
+		Random random = new Random(seed);
+		List<String> attributes = attributeNames(attributeCount);
+		double[][] values = new double[rows][attributeCount];
+		int[] classes = new int[rows];
+		for (int row = 0; row < rows; row++) {
+			double score = 0d;
+			for (int attr = 0; attr < attributeCount; attr++) {
+				values[row][attr] = Math.floor(random.nextDouble() * 10000d) / 100d;
+
+				// First three attributes carry the signal, weighted decreasingly
+				if (attr < 3) {
+					score += values[row][attr] / (attr + 1);
+				}
+			}
+			double maxScore = attributeCount >= 3 ? 100d * (1d + 1d / 2d + 1d / 3d)
+					: attributeCount == 2 ? 150d : 100d;
+			int classValue = 1 + Math.min(CLASS_COUNT - 1, (int) (score / maxScore * CLASS_COUNT));
+			if (random.nextDouble() < NOISE) {
+				classValue = 1 + random.nextInt(CLASS_COUNT);
+			}
+			classes[row] = classValue;
+		}
+		return new SyntheticData(attributes, values, classes);
+	}
+
+	// Attribute names a0, a1, ...
+	public static List<String> attributeNames(int attributeCount) {
+		List<String> attributes = new ArrayList<>();
+		for (int attr = 0; attr < attributeCount; attr++) {
+			attributes.add("a" + attr);
+		}
+		return attributes;
+	}
+
+	public List<String> getAttributes() {
+		return attributes;
+	}
+
+	public int size() {
+		return classes.length;
+	}
+
+	// Data set as list of InputSet, as returned by ReadInput.readFile()
+	public List<InputSet> toInputSets() {
+		List<InputSet> inputList = new ArrayList<>(classes.length);
+		for (int row = 0; row < classes.length; row++) {
+			Map<String, Number> attributeValues = new HashMap<>();
+			for (int attr = 0; attr < attributes.size(); attr++) {
+				attributeValues.put(attributes.get(attr), values[row][attr]);
+			}
+			InputSet input = new InputSet();
+			input.setAttributeValues(attributeValues);
+			input.setClassValue(classes[row]);
+			inputList.add(input);
+		}
+		return inputList;
+	}
+
+	// Data set in columnar form, as returned by ReadInput.readColumnar()
+	public ColumnarDataset toColumnar() {
+		double[][] columns = new double[attributes.size()][classes.length];
+		double[] rawClasses = new double[classes.length];
+		for (int row = 0; row < classes.length; row++) {
+			for (int attr = 0; attr < attributes.size(); attr++) {
+				columns[attr][row] = values[row][attr];
+			}
+			rawClasses[row] = classes[row];
+		}
+		ClassDictionary classes = ClassDictionary.of(rawClasses);
+		return new ColumnarDataset(attributes, columns, classes.encode(rawClasses), classes);
+	}
+
+	// Write data set in input file format: class value followed by attribute values
+	public void writeCsv(Path path) throws IOException {
+		try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+			for (int row = 0; row < classes.length; row++) {
+				writer.write(String.valueOf(classes[row]));
+				for (int attr = 0; attr < attributes.size(); attr++) {
+					writer.write(',');
+					writer.write(String.valueOf(values[row][attr]));
+				}
+				writer.newLine();
+			}
+		}
+	}
+}
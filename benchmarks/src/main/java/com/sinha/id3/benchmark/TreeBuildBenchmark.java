@@ -0,0 +1,92 @@
+package com.sinha.id3.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sinha.id3.util.BuildPool;
+import com.sinha.id3.util.ColumnarDataset;
+import com.sinha.id3.util.InputSet;
+import com.sinha.id3.util.Node;
+import com.sinha.id3.util.TreeUtility;
+
+/*
+ * Construction of greedy and mid split trees from InputSet lists and from
+ * columnar data sets
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TreeBuildBenchmark {
+
+	@Param({ "1000", "10000" })
+	public int rows;
+
+	@Param({ "4", "16" })
+	public int attributeCount;
+
+	@Param({ "3" })
+	public int maxDepth;
+
+	private List<String> attributes;
+	private List<InputSet> inputList;
+	private ColumnarDataset data;
+
+	private ExecutorService executor;
+	private ForkJoinPool pool;
+
+	@Setup
+	public void setup() {
+		SyntheticData synthetic = SyntheticData.generate(rows, attributeCount, 42L);
+		attributes = synthetic.getAttributes();
+		inputList = synthetic.toInputSets();
+		data = synthetic.toColumnar();
+		executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		pool = BuildPool.newPool();
+	}
+
+	@TearDown
+	public void tearDown() {
+		executor.shutdown();
+		pool.shutdown();
+	}
+
+	@Benchmark
+	public Node greedyInputSets() {
+		return TreeUtility.generateTreeGreedySplit(new ArrayList<>(attributes), inputList, null, null, executor);
+	}
+
+	@Benchmark
+	public Node greedyColumnar() {
+		return TreeUtility.generateTreeGreedySplit(attributes, data, pool);
+	}
+
+	@Benchmark
+	public Node midInputSets() {
+		return TreeUtility.generateTreeMidSplit(new ArrayList<>(attributes), inputList, null, null, maxDepth, 1);
+	}
+
+	@Benchmark
+	public Node midColumnar() {
+		return TreeUtility.generateTreeMidSplit(attributes, data, maxDepth, pool);
+	}
+}
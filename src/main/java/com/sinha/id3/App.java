@@ -3,22 +3,38 @@ package com.sinha.id3;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import javax.swing.JFrame;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.sinha.id3.util.BaggedForest;
+import com.sinha.id3.util.BinnedDataset;
+import com.sinha.id3.util.BuildPool;
+import com.sinha.id3.util.ColumnarDataset;
+import com.sinha.id3.util.CompiledForest;
+import com.sinha.id3.util.CompiledTree;
 import com.sinha.id3.util.CrossFoldValidation;
+import com.sinha.id3.util.ForestCoordinator;
 import com.sinha.id3.util.ForestUtils;
-import com.sinha.id3.util.InputSet;
+import com.sinha.id3.util.HoeffdingTree;
+import com.sinha.id3.util.Impurity;
+import com.sinha.id3.util.MemorySize;
+import com.sinha.id3.util.MetricsRegistry;
+import com.sinha.id3.util.ModelFile;
 import com.sinha.id3.util.Node;
+import com.sinha.id3.util.NodeUtility;
 import com.sinha.id3.util.NodeVisualizer;
 import com.sinha.id3.util.ReadInput;
+import com.sinha.id3.util.RenderQueue;
+import com.sinha.id3.util.TreeBuildConfig;
 import com.sinha.id3.util.TreeUtility;
+import com.sinha.id3.util.Utility;
 
 /*
  * Main Class. Execution begins here in main() method
@@ -28,17 +44,58 @@ public class App {
 	// LOG statements to Console. Specified in log4j2.xml
 	private static final Logger LOGGER = LoggerFactory.getLogger(App.class);
 
-	// ExecutorService to enable multi-threaded computing when determining split
-	// variable for greedy split
-	private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(140);
+	// Work stealing pool shared by split searches, subtrees and forest trees.
+	// Parallelism = available processors
+	private static final ForkJoinPool POOL = BuildPool.newPool();
 
-	// Executor to enable multi threaded construction of trees in forest.
-	private static final ExecutorService FOREST_EXECUTOR = Executors.newFixedThreadPool(40);
+	// Model files to write, null if not requested
+	private static String saveTreePath;
+	private static String saveForestPath;
+
+	// JSON file for build counters, null if not requested
+	private static String metricsPath;
+
+	// Limits of greedy split tree and its cross validation folds
+	private static TreeBuildConfig greedyConfig = TreeBuildConfig.DEFAULT;
+
+	// Local worker processes building bagged forest, 0 to build it in process.
+	// Port workers connect to, 0 for any free port
+	private static int workerCount;
+	private static int coordinatorPort;
+
+	// Longest wait for a worker's tree before it is built by another worker
+	private static long treeTimeoutMillis = ForestCoordinator.DEFAULT_TREE_TIMEOUT_MILLIS;
+
+	// Compare binned split search with exact greedy search by cross validation
+	private static boolean compareBinned;
+
+	// Learn Hoeffding tree from rows of data set in order
+	private static boolean stream;
 
 	// Required Arguments -
 	// index - 0 -> path/To/Data/File
 	// index - 1 -> comma separated attribute names
+	// Optional Arguments, after required ones -
+	// --headless -> open no windows. Nothing written unless listed in --artifacts
+	// --artifacts=tree,charts,roc -> files to write. Default all without --headless
+	// --save-tree=path -> write greedy tree as memory mappable model file
+	// --save-forest=path -> write bagged forest trained on all rows as model file
+	// --max-depth=, --min-samples-split=, --min-samples-leaf=, --min-gain=,
+	// --max-nodes=, --max-build-ms= -> limits of greedy split tree, see
+	// TreeBuildConfig. Unlimited by default
+	// --impurity=entropy|table_entropy|gini -> impurity whose decrease is the
+	// gain of a greedy split, see Impurity. Default entropy
+	// --compare-binned -> cross validate binned split search against greedy split
+	// tree, with same limits
+	// --stream -> also learn incremental Hoeffding tree from rows in file order
+	// --metrics=path -> write build counters of whole run as JSON
+	// --workers=N -> build bagged forest on N local worker processes
+	// --coordinator-port=P -> port workers connect to, eg. further ForestWorker
+	// processes on other hosts. Any free port by default
+	// --tree-timeout-ms=T -> longest wait for a worker's tree before it is
+	// reassigned, 0 for no limit. Default 10 minutes
 	public static void main(String[] args) throws IOException {
+		readOptions(args);
 
 		// Path to data set file
 		String pathToDataFile = (String) args[0];
@@ -49,58 +106,215 @@ public class App {
 		// List of attributes constructed using comma separated attributes given above
 		List<String> attributes = new ArrayList<>(Arrays.asList(names.split(",")));
 
-		// Data read from file specified in pathToDataFile variable above
-		List<InputSet> inputList = ReadInput.readFile(pathToDataFile, attributes);
-		LOGGER.info("Instances: {}", inputList.size());
-
-		// Generate Tree with max depth = 2
-		long curTimeMid2 = System.currentTimeMillis();
-		Node midRootNode2 = TreeUtility.generateTreeMidSplit(new ArrayList<>(attributes), inputList, null, null, 2, 1);
-		LOGGER.info("Time taken to build tree mid split(2): {}", System.currentTimeMillis() - curTimeMid2);
-		// Tree visualisation
-		visualiseNode(midRootNode2, "Mid Split", "2");
-		// 10-Fold Cross Validation
-		CrossFoldValidation.kFoldCrossEvalOnMid(attributes, inputList, 10, 2);
+		// Data read from file specified in pathToDataFile variable above into
+		// primitive columns
+		ColumnarDataset dataset = ReadInput.readColumnar(pathToDataFile, attributes);
+		LOGGER.info("Instances: {}", dataset.size());
 
-		// Generate tree with max depth = 3
+		// Generate mid split tree once with max depth = 4. Trees with max depth = 2
+		// and 3 are its prefixes
 		long curTimeMid = System.currentTimeMillis();
-		Node midRootNode = TreeUtility.generateTreeMidSplit(new ArrayList<>(attributes), inputList, null, null, 3, 1);
-		LOGGER.info("Time taken to build tree mid split(3): {}", System.currentTimeMillis() - curTimeMid);
-		visualiseNode(midRootNode, "Mid Split", "3");
-		CrossFoldValidation.kFoldCrossEvalOnMid(attributes, inputList, 10, 3);
-
-		// Generate tree with max depth = 4
-		long curTimeMidplus = System.currentTimeMillis();
-		Node midRootNode4 = TreeUtility.generateTreeMidSplit(new ArrayList<>(attributes), inputList, null, null, 4, 1);
-		LOGGER.info("Time taken to build tree mid split(4): {}", System.currentTimeMillis() - curTimeMidplus);
-		visualiseNode(midRootNode4, "Mid Split", "4");
-		CrossFoldValidation.kFoldCrossEvalOnMid(attributes, inputList, 10, 4);
-
-		// Generate tree using greedy search for split values but with no maximum
-		// depth
+		Node midRootNode4 = TreeUtility.generateTreeMidSplit(attributes, dataset, 4, POOL);
+		LOGGER.info("Time taken to build tree mid split(4): {}", System.currentTimeMillis() - curTimeMid);
+		for (int depth = 2; depth <= 4; depth++) {
+			Node midRootNode = NodeUtility.prefix(midRootNode4, depth, dataset);
+			// Tree visualisation
+			logModelSize(midRootNode, dataset, "mid split(" + depth + ")");
+			visualiseNode(midRootNode, "Mid Split", String.valueOf(depth));
+		}
+		// 10-Fold Cross Validation of each depth. One tree grown per fold
+		CrossFoldValidation.kFoldCrossEvalOnMid(attributes, dataset, 10, new int[] { 2, 3, 4 }, POOL);
+
+		// Generate tree using greedy search for split values, with no maximum depth
+		// unless limited by options
 		long curTimeGreedy = System.currentTimeMillis();
-		Node rootNodeGreedy = TreeUtility.generateTreeGreedySplit(new ArrayList<>(attributes), inputList, null, null,
-				EXECUTOR);
+		Node rootNodeGreedy = TreeUtility.generateTreeGreedySplit(attributes, dataset,
+				Utility.allRows(dataset.size()), greedyConfig, POOL);
 		LOGGER.info("Time taken to build tree greedy split: {}", System.currentTimeMillis() - curTimeGreedy);
+		logModelSize(rootNodeGreedy, dataset, "greedy split");
 		visualiseNode(rootNodeGreedy, "Greedy", "");
-		CrossFoldValidation.kFoldCrossEvalGreedy(new ArrayList<>(attributes), inputList, 10, EXECUTOR);
+		CrossFoldValidation.kFoldCrossEvalGreedy(attributes, dataset, 10, greedyConfig, POOL);
+		if (null != saveTreePath) {
+			ModelFile.write(CompiledTree.compile(rootNodeGreedy, dataset), saveTreePath);
+			LOGGER.info("Greedy tree written to {}", saveTreePath);
+		}
+
+		// Accuracy of histogram binned split search against exact greedy search
+		if (compareBinned) {
+			CrossFoldValidation.compareBinnedToExact(attributes, dataset, 10, BinnedDataset.DEFAULT_MAX_BINS,
+					greedyConfig, POOL);
+		}
+
+		// Bagged forest validated on out of bag rows, so forest is built once on all
+		// rows instead of once per fold
+		long curTimeForest = System.currentTimeMillis();
+		BaggedForest forest = workerCount > 0 ? evaluateForestOnWorkers(pathToDataFile, dataset, attributes)
+				: ForestUtils.evaluateForestOutOfBag(dataset, attributes, 10, 6, POOL);
+		LOGGER.info("Time taken to build and evaluate bagged forest: {}", System.currentTimeMillis() - curTimeForest);
+		if (null != saveForestPath) {
+			ModelFile.write(CompiledForest.compile(forest.getTrees(), dataset), saveForestPath);
+			LOGGER.info("Forest of {} trees written to {}", forest.getTrees().size(), saveForestPath);
+		}
+		POOL.shutdown();
+
+		// Incremental Hoeffding tree learnt from loaded rows one at a time, in file
+		// order. Accuracy counts rows predicted correctly before being learnt
+		if (stream) {
+			HoeffdingTree streamedTree = new HoeffdingTree(attributes);
+			long curTimeStream = System.currentTimeMillis();
+			long correct = streamedTree.learn(dataset);
+			LOGGER.info("Time taken to stream Hoeffding tree: {}", System.currentTimeMillis() - curTimeStream);
+			LOGGER.info("Hoeffding tree: {} rows, {} leaves, prequential accuracy {}", streamedTree.rowCount(),
+					streamedTree.leafCount(),
+					streamedTree.rowCount() == 0 ? 0d : (double) correct / streamedTree.rowCount());
+		}
+
+		if (null != metricsPath) {
+			MetricsRegistry.writeJson(metricsPath);
+			LOGGER.info("Build counters written to {}", metricsPath);
+		}
+
+		// Charts and images still queued are written before exit
+		RenderQueue.awaitCompletion();
+	}
+
+	// Read optional arguments and set up rendering accordingly. Headless mode also
+	// sets java.awt.headless so charts and images render without a display
+	private static void readOptions(String[] args) {
+		boolean headless = false;
+		Set<RenderQueue.Artifact> artifacts = null;
+		for (int i = 2; i < args.length; i++) {
+			if ("--headless".equals(args[i])) {
+				headless = true;
+			} else if ("--compare-binned".equals(args[i])) {
+				compareBinned = true;
+			} else if ("--stream".equals(args[i])) {
+				stream = true;
+			} else if (args[i].startsWith("--artifacts=")) {
+				artifacts = EnumSet.noneOf(RenderQueue.Artifact.class);
+				for (String artifact : args[i].substring("--artifacts=".length()).split(",")) {
+					try {
+						artifacts.add(RenderQueue.Artifact.valueOf(artifact.trim().toUpperCase()));
+					} catch (IllegalArgumentException e) {
+						LOGGER.error("Unknown artifact: {}", artifact);
+						System.exit(-1);
+					}
+				}
+			} else if (args[i].startsWith("--save-tree=")) {
+				saveTreePath = args[i].substring("--save-tree=".length());
+			} else if (args[i].startsWith("--save-forest=")) {
+				saveForestPath = args[i].substring("--save-forest=".length());
+			} else if (args[i].startsWith("--metrics=")) {
+				metricsPath = args[i].substring("--metrics=".length());
+			} else if (args[i].startsWith("--workers=") || args[i].startsWith("--coordinator-port=")
+					|| args[i].startsWith("--tree-timeout-ms=")) {
+				try {
+					String value = args[i].substring(args[i].indexOf('=') + 1);
+					if (args[i].startsWith("--workers=")) {
+						workerCount = Integer.parseInt(value);
+					} else if (args[i].startsWith("--coordinator-port=")) {
+						coordinatorPort = Integer.parseInt(value);
+					} else {
+						treeTimeoutMillis = Long.parseLong(value);
+					}
+				} catch (NumberFormatException e) {
+					LOGGER.error("Invalid number: {}", args[i]);
+					System.exit(-1);
+				}
+			} else if (args[i].startsWith("--max-depth=") || args[i].startsWith("--min-samples-split=")
+					|| args[i].startsWith("--min-samples-leaf=") || args[i].startsWith("--min-gain=")
+					|| args[i].startsWith("--max-nodes=") || args[i].startsWith("--max-build-ms=")) {
+				greedyConfig = readLimit(greedyConfig, args[i]);
+			} else if (args[i].startsWith("--impurity=")) {
+				String impurity = args[i].substring("--impurity=".length());
+				try {
+					greedyConfig = greedyConfig.withImpurity(Impurity.valueOf(impurity.trim().toUpperCase()));
+				} catch (IllegalArgumentException e) {
+					LOGGER.error("Unknown impurity: {}", impurity);
+					System.exit(-1);
+				}
+			} else {
+				LOGGER.error("Unknown argument: {}", args[i]);
+				System.exit(-1);
+			}
+		}
+		if (null == artifacts) {
+			artifacts = headless ? EnumSet.noneOf(RenderQueue.Artifact.class)
+					: EnumSet.allOf(RenderQueue.Artifact.class);
+		}
+		if (headless) {
+			System.setProperty("java.awt.headless", "true");
+		}
+		RenderQueue.configure(headless, artifacts);
+	}
+
+	// Config with limit given by option changed
+	private static TreeBuildConfig readLimit(TreeBuildConfig config, String option) {
+		String value = option.substring(option.indexOf('=') + 1);
+		try {
+			if (option.startsWith("--max-depth=")) {
+				return config.withMaxDepth(Integer.parseInt(value));
+			} else if (option.startsWith("--min-samples-split=")) {
+				return config.withMinSamplesSplit(Integer.parseInt(value));
+			} else if (option.startsWith("--min-samples-leaf=")) {
+				return config.withMinSamplesLeaf(Integer.parseInt(value));
+			} else if (option.startsWith("--min-gain=")) {
+				return config.withMinGain(Double.parseDouble(value));
+			} else if (option.startsWith("--max-nodes=")) {
+				return config.withMaxNodes(Integer.parseInt(value));
+			}
+			return config.withMaxBuildMillis(Long.parseLong(value));
+		} catch (IllegalArgumentException e) {
+			LOGGER.error("Invalid limit: {}", option);
+			System.exit(-1);
+			return config;
+		}
+	}
+
+	// Build bagged forest on local worker processes, which load data set from its
+	// cache beside data file, and evaluate it on out of bag rows. Each worker
+	// builds with an equal share of processors
+	private static BaggedForest evaluateForestOnWorkers(String pathToDataFile, ColumnarDataset dataset,
+			List<String> attributes) {
+		try (ForestCoordinator coordinator = ForestCoordinator.start(dataset, pathToDataFile, coordinatorPort,
+				treeTimeoutMillis)) {
+			coordinator.spawnLocalWorkers(workerCount,
+					Math.max(1, Runtime.getRuntime().availableProcessors() / workerCount));
+			coordinator.awaitWorkers(workerCount, ForestCoordinator.WORKER_WAIT_MILLIS);
+			return ForestUtils.evaluateForestOutOfBag(dataset, attributes, 10, 6, coordinator);
+		} catch (IOException e) {
+			LOGGER.error("Could not start forest workers", e);
+			System.exit(-1);
+			return null;
+		}
+	}
 
-		ForestUtils.evaluateForest(inputList, attributes, 10, 6, 10, FOREST_EXECUTOR, EXECUTOR);
-		EXECUTOR.shutdown();
-		FOREST_EXECUTOR.shutdown();
+	// Log node count and estimated memory of tree in compiled form and as Node tree
+	private static void logModelSize(Node node, ColumnarDataset dataset, String type) {
+		CompiledTree model = CompiledTree.compile(node, dataset);
+		LOGGER.info("Model size {}: {} nodes, {} bytes compiled, {} bytes as Node tree", type, model.size(),
+				model.memoryBytes(), MemorySize.ofNodeTree(node));
 	}
 
 	/*
-	 * Visualizes the tree constructed
+	 * Visualizes the tree constructed. Image written and window opened on render
+	 * queue, as requested
 	 * 
 	 * @input: node to visualise
 	 */
-	private static void visualiseNode(Node node, String type, String depth) throws IOException {
-		NodeVisualizer frame = new NodeVisualizer(node, type, depth);
-		frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-		// Display frame size
-		frame.setSize(1600, 900);
-		frame.setVisible(true);
+	private static void visualiseNode(Node node, String type, String depth) {
+		if (RenderQueue.isRequested(RenderQueue.Artifact.TREE)) {
+			RenderQueue.submit("tree image " + type + " " + depth, () -> NodeVisualizer.saveImage(node, type, depth));
+		}
+		if (!RenderQueue.isHeadless()) {
+			RenderQueue.submit("tree window " + type + " " + depth, () -> {
+				NodeVisualizer frame = new NodeVisualizer(node, type, depth);
+				frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+				// Display frame size
+				frame.setSize(1600, 900);
+				frame.setVisible(true);
+			});
+		}
 	}
 
 }
@@ -29,6 +29,22 @@ public class ClassMetrics {
 		this.fnCount += 1d;
 	}
 
+	public void tpCountPlus(int count) {
+		this.tpCount += count;
+	}
+
+	public void fpCountPlus(int count) {
+		this.fpCount += count;
+	}
+
+	public void tnCountPlus(int count) {
+		this.tnCount += count;
+	}
+
+	public void fnCountPlus(int count) {
+		this.fnCount += count;
+	}
+
 	public String getClassValue() {
 		return classValue;
 	}
@@ -1,6 +1,7 @@
 package com.sinha.id3.util;
 
 import java.io.IOException;
+import java.util.List;
 
 import org.knowm.xchart.BitmapEncoder;
 import org.knowm.xchart.SwingWrapper;
@@ -33,23 +34,58 @@ public class AreaChart {
 		double tpr3 = Class3.getTpCount() / (Class3.getTpCount() + Class3.getFnCount());
 		double[] ydata3 = new double[] { 0d, tpr3, 1d };
 
-		// Initialise Chart
-		XYChart chart = new XYChartBuilder().width(800).height(600).title("ROC for all classes").xAxisTitle("FPR")
-				.yAxisTitle("TPR").build();
+		render(new String[] { "Class 1", "Class 2", "Class 3" }, new double[][] { xdata1, xdata2, xdata3 },
+				new double[][] { ydata1, ydata2, ydata3 }, typeDecision);
+	}
+
+	// Plot ROC for any number of class values on one graph
+	public AreaChart(List<ClassMetrics> classMetrics, String typeDecision) throws IOException {
+
+		// Calculate FPR and TPR for each class value
+		String[] names = new String[classMetrics.size()];
+		double[][] xdata = new double[classMetrics.size()][];
+		double[][] ydata = new double[classMetrics.size()][];
+		for (int i = 0; i < names.length; i++) {
+			ClassMetrics classMetric = classMetrics.get(i);
+			double fpr = classMetric.getFpCount() / (classMetric.getFpCount() + classMetric.getTnCount());
+			double tpr = classMetric.getTpCount() / (classMetric.getTpCount() + classMetric.getFnCount());
+			names[i] = "Class " + classMetric.getClassValue();
+			xdata[i] = new double[] { 0d, fpr, 1d };
+			ydata[i] = new double[] { 0d, tpr, 1d };
+		}
+		render(names, xdata, ydata, typeDecision);
+	}
+
+	// Build, display and save chart on render queue. Coordinates are computed by
+	// caller, so ClassMetrics are not read after constructor returns
+	private static void render(String[] names, double[][] xdata, double[][] ydata, String typeDecision) {
+		if (!RenderQueue.isNeeded(RenderQueue.Artifact.CHARTS)) {
+			return;
+		}
+		RenderQueue.submit("ROC all classes " + typeDecision, () -> {
+
+			// Initialise Chart
+			XYChart chart = new XYChartBuilder().width(800).height(600).title("ROC for all classes")
+					.xAxisTitle("FPR").yAxisTitle("TPR").build();
 
-		chart.getStyler().setLegendPosition(LegendPosition.InsideSE);
-		chart.getStyler().setLegendVisible(true);
-		chart.getStyler().setAxisTitlesVisible(true);
+			chart.getStyler().setLegendPosition(LegendPosition.InsideSE);
+			chart.getStyler().setLegendVisible(true);
+			chart.getStyler().setAxisTitlesVisible(true);
 
-		// Populate coordinates
-		chart.addSeries("Class 1", xdata1, ydata1);
-		chart.addSeries("Class 2", xdata2, ydata2);
-		chart.addSeries("Class 3", xdata3, ydata3);
+			// Populate coordinates
+			for (int i = 0; i < names.length; i++) {
+				chart.addSeries(names[i], xdata[i], ydata[i]);
+			}
 
-		// Display chart
-		new SwingWrapper<XYChart>(chart).displayChart();
+			// Display chart
+			if (!RenderQueue.isHeadless()) {
+				new SwingWrapper<XYChart>(chart).displayChart();
+			}
 
-		// Save to file
-		BitmapEncoder.saveBitmapWithDPI(chart, "./AllClassesROC" + typeDecision, BitmapFormat.PNG, 300);
+			// Save to file
+			if (RenderQueue.isRequested(RenderQueue.Artifact.CHARTS)) {
+				BitmapEncoder.saveBitmapWithDPI(chart, "./AllClassesROC" + typeDecision, BitmapFormat.PNG, 300);
+			}
+		});
 	}
 }
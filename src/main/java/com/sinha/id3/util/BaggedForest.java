@@ -0,0 +1,74 @@
+package com.sinha.id3.util;
+
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * Forest whose trees were each built on a Bootstrap sample of the training
+ * rows. Keeps out of bag rows of every tree (about a third of the rows), so
+ * the forest can be validated on rows its trees did not see without holding
+ * out data or building the forest again per fold
+ */
+public class BaggedForest {
+
+	private final List<Node> trees;
+
+	// Out of bag rows of each tree, in tree order
+	private final int[][] outOfBagRows;
+
+	public BaggedForest(List<Node> trees, int[][] outOfBagRows) {
+		if (trees.size() != outOfBagRows.length) {
+			throw new IllegalArgumentException("Out of bag rows needed for each of " + trees.size() + " trees");
+		}
+		this.trees = Collections.unmodifiableList(trees);
+		this.outOfBagRows = outOfBagRows;
+	}
+
+	public List<Node> getTrees() {
+		return trees;
+	}
+
+	public int[] getOutOfBagRows(int tree) {
+		return outOfBagRows[tree];
+	}
+
+	// Vote of each row by trees it was out of bag for. Trees compiled and scored
+	// tree major over their out of bag rows. Rows out of bag for no tree are not
+	// counted. Score of a row is fraction of its votes for its actual class
+	public FoldMetrics evaluateOutOfBag(ColumnarDataset data) {
+		CompiledForest model = CompiledForest.compile(trees, data);
+		CompiledTree[] compiled = model.getTrees();
+		int classCount = data.classCount();
+		int[] votes = new int[data.size() * classCount];
+		int[] treeVotes = new int[data.size()];
+		for (int tree = 0; tree < compiled.length; tree++) {
+			int[] rows = outOfBagRows[tree];
+			int[] predictions = BatchScorer.predict(compiled[tree], data, rows);
+			for (int i = 0; i < rows.length; i++) {
+				treeVotes[rows[i]]++;
+				if (predictions[i] != CompiledTree.UNKNOWN_CLASS) {
+					votes[rows[i] * classCount + predictions[i]]++;
+				}
+			}
+		}
+
+		FoldMetrics metrics = new FoldMetrics(classCount);
+		int[] rowVotes = new int[classCount];
+		for (int row = 0; row < data.size(); row++) {
+			if (treeVotes[row] == 0) {
+				continue;
+			}
+			System.arraycopy(votes, row * classCount, rowVotes, 0, classCount);
+			int predClass = Utility.majorityClass(rowVotes);
+			int actualClass = data.classCode(row);
+			metrics.add(actualClass, predClass);
+			int total = 0;
+			for (int count : rowVotes) {
+				total += count;
+			}
+			metrics.addScore(total == 0 ? 0d : (double) rowVotes[actualClass] / (double) total,
+					predClass == actualClass);
+		}
+		return metrics;
+	}
+}
@@ -0,0 +1,125 @@
+package com.sinha.id3.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/*
+ * Batch scoring of compiled trees and forests over blocks of rows held in
+ * columnar form. Forests are scored tree major: one tree is run over a whole
+ * chunk of rows before the next tree, keeping tree arrays and the columns it
+ * reads hot in cache. Chunks are scored in parallel when an executor is given
+ */
+public class BatchScorer {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(BatchScorer.class);
+
+	// Rows scored by one task
+	public static final int CHUNK_SIZE = 4096;
+
+	// Predict class codes for all rows of block
+	public static int[] predict(CompiledTree tree, ColumnarDataset block) {
+		return predict(tree, block, Utility.allRows(block.size()));
+	}
+
+	// Predict class codes for given rows of data set. Result indexed as rows
+	public static int[] predict(CompiledTree tree, ColumnarDataset data, int[] rows) {
+		int[] predictions = new int[rows.length];
+		tree.predict(data, rows, 0, rows.length, predictions);
+		return predictions;
+	}
+
+	// Predict class codes by majority vote for all rows of block
+	public static int[] predict(CompiledTree[] forest, ColumnarDataset block, int[] voteCounts,
+			ExecutorService executor) {
+		return predict(forest, block, Utility.allRows(block.size()), voteCounts, executor);
+	}
+
+	// Predict class codes by majority vote for given rows of data set. When
+	// voteCounts is not null it receives the vote count matrix, row major:
+	// voteCounts[i * classCount + classCode] for rows[i]. Chunks of CHUNK_SIZE rows
+	// scored in parallel on executor, sequentially when executor is null
+	public static int[] predict(CompiledTree[] forest, ColumnarDataset data, int[] rows, int[] voteCounts,
+			ExecutorService executor) {
+		int classCount = forest.length == 0 ? 0 : forest[0].classCount();
+		if (null != voteCounts && voteCounts.length != rows.length * classCount) {
+			throw new IllegalArgumentException("Vote count matrix must hold " + rows.length * classCount + " entries");
+		}
+		int[] predictions = new int[rows.length];
+		if (null == executor || rows.length <= CHUNK_SIZE) {
+			scoreChunk(forest, data, rows, 0, rows.length, classCount, predictions, voteCounts);
+			return predictions;
+		}
+		List<Callable<Void>> callables = new ArrayList<>();
+		for (int from = 0; from < rows.length; from += CHUNK_SIZE) {
+			int chunkFrom = from;
+			int chunkTo = Math.min(rows.length, from + CHUNK_SIZE);
+			callables.add(() -> {
+				scoreChunk(forest, data, rows, chunkFrom, chunkTo, classCount, predictions, voteCounts);
+				return null;
+			});
+		}
+		performTask(callables, executor);
+		return predictions;
+	}
+
+	// Score rows[from..to) tree major. Chunks write disjoint parts of predictions
+	// and voteCounts
+	private static void scoreChunk(CompiledTree[] forest, ColumnarDataset data, int[] rows, int from, int to,
+			int classCount, int[] predictions, int[] voteCounts) {
+		int[] votes = new int[(to - from) * classCount];
+		int[] treePredictions = new int[to - from];
+		int[] chunkRows = new int[to - from];
+		System.arraycopy(rows, from, chunkRows, 0, chunkRows.length);
+		for (CompiledTree tree : forest) {
+			tree.predict(data, chunkRows, 0, chunkRows.length, treePredictions);
+			for (int i = 0; i < treePredictions.length; i++) {
+				if (treePredictions[i] != CompiledTree.UNKNOWN_CLASS) {
+					votes[i * classCount + treePredictions[i]]++;
+				}
+			}
+		}
+
+		// Majority vote per row. On ties higher class code wins as in
+		// Utility.majorityClass
+		for (int i = 0; i < chunkRows.length; i++) {
+			int majority = CompiledTree.UNKNOWN_CLASS;
+			for (int code = 0; code < classCount; code++) {
+				int count = votes[i * classCount + code];
+				if (count > 0 && (majority == CompiledTree.UNKNOWN_CLASS
+						|| count >= votes[i * classCount + majority])) {
+					majority = code;
+				}
+			}
+			predictions[from + i] = majority;
+		}
+		if (null != voteCounts) {
+			System.arraycopy(votes, 0, voteCounts, from * classCount, votes.length);
+		}
+	}
+
+	// Submits callables to executor service and waits for all to finish
+	private static void performTask(List<Callable<Void>> callables, ExecutorService executor) {
+		List<Future<Void>> futures = new ArrayList<>();
+		for (Callable<Void> callable : callables) {
+			futures.add(executor.submit(callable));
+		}
+		for (Future<Void> future : futures) {
+			try {
+				future.get();
+			} catch (InterruptedException | ExecutionException e) {
+				LOGGER.error("Exception scoring batch: ", e);
+				LOGGER.error("Exit");
+				future.cancel(true);
+				executor.shutdown();
+				System.exit(-1);
+			}
+		}
+	}
+}
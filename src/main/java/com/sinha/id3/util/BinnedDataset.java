@@ -0,0 +1,153 @@
+package com.sinha.id3.util;
+
+import java.util.Arrays;
+
+/*
+ * Quantized view of a columnar data set used for histogram based split search.
+ * Each attribute is quantized once into at most maxBins quantile bins. Bin b of
+ * an attribute holds values v with cuts[b - 1] < v <= cuts[b]. Splitting after
+ * bin b is therefore the same as splitting raw values at cuts[b]
+ */
+public class BinnedDataset {
+
+	// Default maximum number of bins per attribute
+	public static final int DEFAULT_MAX_BINS = 255;
+
+	// Largest supported number of bins. Bin indices stored as short
+	public static final int MAX_BINS_LIMIT = Short.MAX_VALUE;
+
+	private final ColumnarDataset data;
+
+	private final int maxBins;
+
+	// Cut points per attribute in ascending order. Values above last cut fall in
+	// last bin
+	private final double[][] cuts;
+
+	// Bin index per attribute per row. bins[attributeIndex][row]
+	private final short[][] bins;
+
+	private BinnedDataset(ColumnarDataset data, int maxBins, double[][] cuts, short[][] bins) {
+		this.data = data;
+		this.maxBins = maxBins;
+		this.cuts = cuts;
+		this.bins = bins;
+	}
+
+	// Quantize all attributes of data set using quantiles of all rows
+	public static BinnedDataset build(ColumnarDataset data, int maxBins) {
+		return build(data, Utility.allRows(data.size()), maxBins);
+	}
+
+	// Quantize all attributes of data set. Cut points determined from quantiles of
+	// given rows (eg. training rows), bin indices assigned to every row
+	public static BinnedDataset build(ColumnarDataset data, int[] rows, int maxBins) {
+		if (maxBins < 2 || maxBins > MAX_BINS_LIMIT) {
+			throw new IllegalArgumentException("maxBins must be between 2 and " + MAX_BINS_LIMIT + ": " + maxBins);
+		}
+		double[][] cuts = new double[data.attributeCount()][];
+		short[][] bins = new short[data.attributeCount()][];
+		for (int attr = 0; attr < data.attributeCount(); attr++) {
+			double[] column = data.getColumn(attr);
+			double[] values = new double[rows.length];
+			for (int i = 0; i < rows.length; i++) {
+				values[i] = column[rows[i]];
+			}
+			cuts[attr] = quantileCuts(values, maxBins);
+			bins[attr] = new short[column.length];
+			for (int row = 0; row < column.length; row++) {
+				bins[attr][row] = (short) binOf(cuts[attr], column[row]);
+			}
+		}
+		return new BinnedDataset(data, maxBins, cuts, bins);
+	}
+
+	// Determine at most maxBins - 1 cut points. When there are no more distinct
+	// values than bins, each distinct value gets its own bin and cut points are mid
+	// points between successive values, same as candidate splits of exact search
+	static double[] quantileCuts(double[] values, int maxBins) {
+		double[] distinct = ColumnarDataset.distinctSorted(values);
+		if (distinct.length <= maxBins) {
+			double[] cuts = new double[Math.max(0, distinct.length - 1)];
+			for (int i = 0; i < cuts.length; i++) {
+				cuts[i] = (distinct[i] + distinct[i + 1]) / 2;
+			}
+			return cuts;
+		}
+
+		// Cut between sorted[idx - 1] and sorted[idx] at each quantile. A quantile
+		// inside a run of equal values moves to the end of that run. Duplicate cuts
+		// (heavily repeated values) are skipped
+		double[] sorted = Arrays.copyOf(values, values.length);
+		Arrays.sort(sorted);
+		double[] cuts = new double[maxBins - 1];
+		int count = 0;
+		for (int j = 1; j < maxBins; j++) {
+			int idx = (int) ((long) j * sorted.length / maxBins);
+			if (idx == 0) {
+				continue;
+			}
+			idx = endOfRun(sorted, idx);
+			if (idx == sorted.length) {
+				continue;
+			}
+			double cut = (sorted[idx - 1] + sorted[idx]) / 2;
+			if (count == 0 || cut > cuts[count - 1]) {
+				cuts[count++] = cut;
+			}
+		}
+		return Arrays.copyOf(cuts, count);
+	}
+
+	// First index at or after from holding a value other than sorted[from - 1]
+	private static int endOfRun(double[] sorted, int from) {
+		double value = sorted[from - 1];
+		int low = from;
+		int high = sorted.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (sorted[mid] == value) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	// Returns bin for value. Index of first cut >= value, cuts.length if none
+	static int binOf(double[] cuts, double value) {
+		int low = 0;
+		int high = cuts.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (cuts[mid] < value) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	public ColumnarDataset getData() {
+		return data;
+	}
+
+	public int getMaxBins() {
+		return maxBins;
+	}
+
+	// Number of bins for attribute
+	public int binCount(int attribute) {
+		return cuts[attribute].length + 1;
+	}
+
+	public double[] getCuts(int attribute) {
+		return cuts[attribute];
+	}
+
+	public short[] getBins(int attribute) {
+		return bins[attribute];
+	}
+}
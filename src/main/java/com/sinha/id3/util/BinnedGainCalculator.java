@@ -0,0 +1,170 @@
+package com.sinha.id3.util;
+
+import java.util.concurrent.Callable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Histogram counterpart of ColumnGainCalculator. Builds per bin class counts for
+// one attribute over given rows and sweeps bin boundaries instead of raw values
+public class BinnedGainCalculator implements Callable<SplitCandidate> {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(BinnedGainCalculator.class);
+
+	private BinnedDataset binned;
+
+	// Rows of data set considered, rows[from..to)
+	private int[] rows;
+	private int from;
+	private int to;
+
+	// Column index of attribute being considered
+	private int attribute;
+
+	// Class histogram of attribute over rows, or null to build it from rows
+	private int[] histogram;
+
+	// Class counts of rows, only used with given histogram
+	private int[] classCounts;
+
+	// Least rows on each side of a split
+	private int minLeaf = 1;
+
+	private ImpurityFunction impurity = Impurity.ENTROPY;
+
+	public BinnedGainCalculator(BinnedDataset binned, int[] rows, int attribute) {
+		this.binned = binned;
+		this.rows = rows;
+		this.to = rows.length;
+		this.attribute = attribute;
+	}
+
+	// Calculator sweeping an already built histogram of count rows, eg. one derived
+	// by subtracting sibling histogram from parent histogram
+	public BinnedGainCalculator(BinnedDataset binned, int count, int attribute, int[] histogram,
+			int[] classCounts) {
+		this.binned = binned;
+		this.to = count;
+		this.attribute = attribute;
+		this.histogram = histogram;
+		this.classCounts = classCounts;
+	}
+
+	// Calculator sweeping given histogram, considering only splits leaving at
+	// least minLeaf rows on each side
+	public BinnedGainCalculator(BinnedDataset binned, int count, int attribute, int[] histogram, int[] classCounts,
+			int minLeaf) {
+		this(binned, count, attribute, histogram, classCounts);
+		this.minLeaf = minLeaf;
+	}
+
+	// Calculator sweeping given histogram with gain measured as decrease of given
+	// impurity
+	public BinnedGainCalculator(BinnedDataset binned, int count, int attribute, int[] histogram, int[] classCounts,
+			int minLeaf, ImpurityFunction impurity) {
+		this(binned, count, attribute, histogram, classCounts, minLeaf);
+		this.impurity = impurity;
+	}
+
+	// Execution begins here
+	@Override
+	public SplitCandidate call() throws Exception {
+		LOGGER.debug("Calculating binned gain for attribute: {}", binned.getData().getAttribute(attribute));
+		if (null != histogram) {
+			return findBestSplit(attribute, histogram, classCounts.clone(), binned.getCuts(attribute), to - from,
+					minLeaf, impurity);
+		}
+		int classCount = binned.getData().classCount();
+		short[] bins = binned.getBins(attribute);
+		int[] classCodes = binned.getData().getClassCodes();
+
+		// Class histogram per bin. histogram[bin * classCount + classCode]
+		int[] built = new int[binned.binCount(attribute) * classCount];
+		int[] rightCounts = new int[classCount];
+		for (int i = from; i < to; i++) {
+			built[bins[rows[i]] * classCount + classCodes[rows[i]]]++;
+			rightCounts[classCodes[rows[i]]]++;
+		}
+		return findBestSplit(attribute, built, rightCounts, binned.getCuts(attribute), to - from, minLeaf,
+				impurity);
+	}
+
+	// Class histogram per bin of attribute over rows[from..to), laid out as in
+	// call()
+	static int[] histogram(BinnedDataset binned, int[] rows, int from, int to, int attribute) {
+		int classCount = binned.getData().classCount();
+		short[] bins = binned.getBins(attribute);
+		int[] classCodes = binned.getData().getClassCodes();
+		int[] histogram = new int[binned.binCount(attribute) * classCount];
+		for (int i = from; i < to; i++) {
+			histogram[bins[rows[i]] * classCount + classCodes[rows[i]]]++;
+		}
+		return histogram;
+	}
+
+	// Class histograms of attributes over rows[from..to) in one pass, each row
+	// index and class code read once for all attributes. Indexed as attributes
+	static int[][] histograms(BinnedDataset binned, int[] rows, int from, int to, int[] attributes) {
+		int classCount = binned.getData().classCount();
+		int[] classCodes = binned.getData().getClassCodes();
+		short[][] bins = new short[attributes.length][];
+		int[][] histograms = new int[attributes.length][];
+		for (int i = 0; i < attributes.length; i++) {
+			bins[i] = binned.getBins(attributes[i]);
+			histograms[i] = new int[binned.binCount(attributes[i]) * classCount];
+		}
+		for (int j = from; j < to; j++) {
+			int row = rows[j];
+			int code = classCodes[row];
+			for (int i = 0; i < attributes.length; i++) {
+				histograms[i][bins[i][row] * classCount + code]++;
+			}
+		}
+		return histograms;
+	}
+
+	// Class counts of rows of a histogram, summed over its bins
+	static int[] classCounts(int[] histogram, int classCount) {
+		int[] counts = new int[classCount];
+		for (int k = 0; k < histogram.length; k++) {
+			counts[k % classCount] += histogram[k];
+		}
+		return counts;
+	}
+
+	// Sweep bin boundaries in ascending order moving bin counts from right to left.
+	// rightCounts holds class counts of all rows and is consumed. Empty bins are
+	// skipped since they give same partition as previous boundary, as are
+	// boundaries leaving fewer than minLeaf rows on either side
+	static SplitCandidate findBestSplit(int attribute, int[] histogram, int[] rightCounts, double[] cuts, int size,
+			int minLeaf, ImpurityFunction impurity) {
+		int classCount = rightCounts.length;
+		int[] leftCounts = new int[classCount];
+		double impurityBeforeSplit = impurity.impurity(rightCounts, size);
+		double bestGain = SplitCandidate.NO_SPLIT;
+		double bestSplit = Double.NaN;
+		int leftCount = 0;
+		int candidates = 0;
+		for (int bin = 0; bin < cuts.length; bin++) {
+			int binSize = 0;
+			for (int code = 0; code < classCount; code++) {
+				int count = histogram[bin * classCount + code];
+				leftCounts[code] += count;
+				rightCounts[code] -= count;
+				binSize += count;
+			}
+			leftCount += binSize;
+			if (binSize == 0 || leftCount == size || leftCount < minLeaf || size - leftCount < minLeaf) {
+				continue;
+			}
+			candidates++;
+			double gain = EntropyUtil.calculateInfoGain(impurityBeforeSplit, impurity.impurity(leftCounts, leftCount),
+					impurity.impurity(rightCounts, size - leftCount), leftCount, size - leftCount);
+			if (bestGain == SplitCandidate.NO_SPLIT || gain >= bestGain) {
+				bestGain = gain;
+				bestSplit = cuts[bin];
+			}
+		}
+		return new SplitCandidate(attribute, bestSplit, bestGain, candidates);
+	}
+}
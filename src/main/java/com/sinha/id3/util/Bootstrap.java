@@ -0,0 +1,59 @@
+package com.sinha.id3.util;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/*
+ * Bootstrap sample of rows of a data set, held as row indices only. Sample
+ * rows are drawn with replacement, as many as there are rows, and listed in
+ * population order with repeats, so builders see each row weighted by how
+ * often it was drawn without any data being copied. Rows never drawn are the
+ * out of bag rows of the sample
+ */
+public class Bootstrap {
+
+	// Drawn rows with repeats, in population order
+	private final int[] sampleRows;
+
+	// Rows of population not drawn, in population order
+	private final int[] outOfBagRows;
+
+	private Bootstrap(int[] sampleRows, int[] outOfBagRows) {
+		this.sampleRows = sampleRows;
+		this.outOfBagRows = outOfBagRows;
+	}
+
+	// Draw rows.length rows from rows with replacement
+	public static Bootstrap draw(int[] rows, Random random) {
+		int[] weights = new int[rows.length];
+		for (int i = 0; i < rows.length; i++) {
+			weights[random.nextInt(rows.length)]++;
+		}
+		int[] sampleRows = new int[rows.length];
+		int[] outOfBagRows = new int[rows.length];
+		int sampled = 0;
+		int outOfBag = 0;
+		for (int i = 0; i < rows.length; i++) {
+			if (weights[i] == 0) {
+				outOfBagRows[outOfBag++] = rows[i];
+			}
+			for (int copy = 0; copy < weights[i]; copy++) {
+				sampleRows[sampled++] = rows[i];
+			}
+		}
+		return new Bootstrap(sampleRows, Arrays.copyOf(outOfBagRows, outOfBag));
+	}
+
+	public int[] getSampleRows() {
+		return sampleRows;
+	}
+
+	public int[] getOutOfBagRows() {
+		return outOfBagRows;
+	}
+
+	// Number of distinct rows drawn at least once
+	public int distinctRows() {
+		return sampleRows.length - outOfBagRows.length;
+	}
+}
@@ -0,0 +1,77 @@
+package com.sinha.id3.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/*
+ * Fork/join pool shared by tree and forest construction. Subtrees, attribute
+ * split searches and forest trees all run as tasks in one work stealing pool
+ * sized from available cores, so waiting tasks help run queued work instead of
+ * blocking a thread of another pool
+ */
+public class BuildPool {
+
+	// Lazily created default pool. Parallelism = available processors
+	private static class DefaultPoolHolder {
+		private static final ForkJoinPool POOL = newPool();
+	}
+
+	// Creates pool with parallelism = available processors
+	public static ForkJoinPool newPool() {
+		return new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+	}
+
+	public static ForkJoinPool defaultPool() {
+		return DefaultPoolHolder.POOL;
+	}
+
+	// Run task in pool and return result. When already running in pool, task is
+	// invoked directly by current worker
+	public static <T> T invoke(ForkJoinPool pool, ForkJoinTask<T> task) {
+		if (ForkJoinTask.getPool() == pool) {
+			return task.invoke();
+		}
+		return pool.invoke(task);
+	}
+
+	// Run callables as fork/join tasks in pool. Results returned in callable order
+	public static <T> List<T> invokeAll(ForkJoinPool pool, List<? extends Callable<T>> callables) {
+		return invoke(pool, new RecursiveTask<List<T>>() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected List<T> compute() {
+				List<ForkJoinTask<T>> tasks = new ArrayList<>();
+				for (Callable<T> callable : callables) {
+					tasks.add(ForkJoinTask.adapt(callable));
+				}
+				ForkJoinTask.invokeAll(tasks);
+				List<T> results = new ArrayList<>();
+				for (ForkJoinTask<T> task : tasks) {
+					results.add(task.join());
+				}
+				return results;
+			}
+		});
+	}
+
+	// Run callables one after another in current thread. Used below sequential
+	// cutoff where forking costs more than it saves
+	public static <T> List<T> callAll(List<? extends Callable<T>> callables) {
+		List<T> results = new ArrayList<>();
+		try {
+			for (Callable<T> callable : callables) {
+				results.add(callable.call());
+			}
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+		return results;
+	}
+}
@@ -0,0 +1,93 @@
+package com.sinha.id3.util;
+
+import java.util.Arrays;
+
+/*
+ * Class values of a data set, built once at ingest. Each distinct class value
+ * gets a dense int code, its index in ascending value order. Builders, leaves,
+ * votes and metrics work on codes only. Report labels are formatted once per
+ * class, so code -> label lookups at the reporting boundary allocate nothing
+ */
+public class ClassDictionary {
+
+	// Distinct class values in ascending order. Class code -> class value
+	private final double[] values;
+
+	// Report label of each class value. Class code -> label
+	private final String[] labels;
+
+	public ClassDictionary(double[] values) {
+		for (int code = 1; code < values.length; code++) {
+			if (!(values[code - 1] < values[code])) {
+				throw new IllegalArgumentException("Class values must be distinct and ascending");
+			}
+		}
+		this.values = values;
+		this.labels = new String[values.length];
+		for (int code = 0; code < values.length; code++) {
+			this.labels[code] = label(values[code]);
+		}
+	}
+
+	// Dictionary of distinct values of raw class column
+	public static ClassDictionary of(double[] rawClasses) {
+		return new ClassDictionary(ColumnarDataset.distinctSorted(rawClasses));
+	}
+
+	// Number of distinct class values
+	public int size() {
+		return values.length;
+	}
+
+	// Class code of value. CompiledTree.UNKNOWN_CLASS if value not in dictionary
+	public int code(double value) {
+		int code = Arrays.binarySearch(values, value);
+		return code < 0 ? CompiledTree.UNKNOWN_CLASS : code;
+	}
+
+	// Class codes of raw class column. Every value must be in dictionary
+	public int[] encode(double[] rawClasses) {
+		int[] codes = new int[rawClasses.length];
+		for (int i = 0; i < rawClasses.length; i++) {
+			codes[i] = code(rawClasses[i]);
+			if (codes[i] == CompiledTree.UNKNOWN_CLASS) {
+				throw new IllegalArgumentException("Class value not in dictionary: " + rawClasses[i]);
+			}
+		}
+		return codes;
+	}
+
+	public double value(int code) {
+		return values[code];
+	}
+
+	// Report label of class code. Same String instance on every call
+	public String label(int code) {
+		return labels[code];
+	}
+
+	public double[] getValues() {
+		return values;
+	}
+
+	// Copy of labels indexed by class code
+	public String[] getLabels() {
+		return labels.clone();
+	}
+
+	// Report form of class value. Integral values printed without decimals in
+	// line with class values parsed by NumberFormat. Only below 2^53, where every
+	// integer is exact and fits a long, larger ones keep exponent form so
+	// distinct values never share a label
+	public static String label(double value) {
+		if (value == Math.rint(value) && Math.abs(value) < 0x1p53) {
+			return String.valueOf((long) value);
+		}
+		return Double.toString(value);
+	}
+
+	@Override
+	public String toString() {
+		return Arrays.toString(labels);
+	}
+}
@@ -0,0 +1,35 @@
+package com.sinha.id3.util;
+
+import java.util.Arrays;
+
+// Growable primitive double array used to build data set columns while reading
+public class ColumnBuilder {
+
+	private double[] values;
+
+	private int size;
+
+	public ColumnBuilder() {
+		this(1024);
+	}
+
+	public ColumnBuilder(int initialCapacity) {
+		this.values = new double[Math.max(16, initialCapacity)];
+	}
+
+	public void add(double value) {
+		if (size == values.length) {
+			values = Arrays.copyOf(values, values.length + (values.length >> 1));
+		}
+		values[size++] = value;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	// Returns trimmed copy of values added so far
+	public double[] toArray() {
+		return Arrays.copyOf(values, size);
+	}
+}
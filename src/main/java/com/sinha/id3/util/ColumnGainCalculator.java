@@ -0,0 +1,83 @@
+package com.sinha.id3.util;
+
+import java.util.concurrent.Callable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Columnar counterpart of InformationGainCalculator. Determines split value with
+// maximum Information Gain for one attribute over given rows of data set
+public class ColumnGainCalculator implements Callable<SplitCandidate> {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ColumnGainCalculator.class);
+
+	// Per thread scratch for values and class codes being sorted. Grown to largest
+	// node seen by thread and reused, so split search does not allocate per node
+	private static final ThreadLocal<double[]> VALUES = ThreadLocal.withInitial(() -> new double[0]);
+	private static final ThreadLocal<int[]> CODES = ThreadLocal.withInitial(() -> new int[0]);
+
+	private ColumnarDataset data;
+
+	// Rows of data set considered, rows[from..to)
+	private int[] rows;
+	private int from;
+	private int to;
+
+	// Column index of attribute being considered
+	private int attribute;
+
+	// Least rows on each side of a split
+	private int minLeaf = 1;
+
+	private ImpurityFunction impurity = Impurity.ENTROPY;
+
+	public ColumnGainCalculator(ColumnarDataset data, int[] rows, int attribute) {
+		this(data, rows, 0, rows.length, attribute);
+	}
+
+	public ColumnGainCalculator(ColumnarDataset data, int[] rows, int from, int to, int attribute) {
+		this.data = data;
+		this.rows = rows;
+		this.from = from;
+		this.to = to;
+		this.attribute = attribute;
+	}
+
+	// Calculator considering only splits leaving at least minLeaf rows on each side
+	public ColumnGainCalculator(ColumnarDataset data, int[] rows, int from, int to, int attribute, int minLeaf) {
+		this(data, rows, from, to, attribute);
+		this.minLeaf = minLeaf;
+	}
+
+	// Calculator with gain measured as decrease of given impurity
+	public ColumnGainCalculator(ColumnarDataset data, int[] rows, int from, int to, int attribute, int minLeaf,
+			ImpurityFunction impurity) {
+		this(data, rows, from, to, attribute, minLeaf);
+		this.impurity = impurity;
+	}
+
+	// Execution begins here
+	@Override
+	public SplitCandidate call() throws Exception {
+		LOGGER.debug("Calculating gain for attribute: {}", data.getAttribute(attribute));
+
+		// Copy attribute values and class codes of rows. Sorted once by split finder
+		double[] column = data.getColumn(attribute);
+		int[] classCodes = data.getClassCodes();
+		int size = to - from;
+		double[] values = VALUES.get();
+		int[] codes = CODES.get();
+		if (values.length < size) {
+			values = new double[size];
+			codes = new int[size];
+			VALUES.set(values);
+			CODES.set(codes);
+		}
+		for (int i = 0; i < size; i++) {
+			values[i] = column[rows[from + i]];
+			codes[i] = classCodes[rows[from + i]];
+		}
+		return SortedSplitFinder.findBestSplit(attribute, values, codes, size, data.classCount(), minLeaf,
+				impurity);
+	}
+}
@@ -0,0 +1,185 @@
+package com.sinha.id3.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Column oriented data set. Stores one primitive double[] per attribute and an
+ * int[] of class codes instead of one InputSet (HashMap of boxed values) per
+ * instance. Attribute names are resolved to column indices once, on creation
+ */
+public class ColumnarDataset {
+
+	// Attribute names in column order
+	private final List<String> attributes;
+
+	// attributeName -> column index
+	private final Map<String, Integer> attributeIndex;
+
+	// Attribute values. columns[attributeIndex][row]
+	private final double[][] columns;
+
+	// Class code for each instance. Index into classes
+	private final int[] classCodes;
+
+	// Distinct class values in ascending order. Class code -> class value, label
+	private final ClassDictionary classes;
+
+	public ColumnarDataset(List<String> attributes, double[][] columns, int[] classCodes, double[] classValues) {
+		this(attributes, columns, classCodes, new ClassDictionary(classValues));
+	}
+
+	public ColumnarDataset(List<String> attributes, double[][] columns, int[] classCodes, ClassDictionary classes) {
+		if (attributes.size() != columns.length) {
+			throw new IllegalArgumentException(
+					"Attribute count " + attributes.size() + " does not match column count " + columns.length);
+		}
+		for (double[] column : columns) {
+			if (column.length != classCodes.length) {
+				throw new IllegalArgumentException("Column length does not match instance count");
+			}
+		}
+		this.attributes = Collections.unmodifiableList(new ArrayList<>(attributes));
+		this.attributeIndex = new HashMap<>();
+		for (int i = 0; i < attributes.size(); i++) {
+			this.attributeIndex.put(attributes.get(i), i);
+		}
+		this.columns = columns;
+		this.classCodes = classCodes;
+		this.classes = classes;
+	}
+
+	// Build data set holding feature columns only, eg. a block of rows to be
+	// scored. Class codes of such data set are not meaningful
+	public static ColumnarDataset ofFeatures(List<String> attributes, double[][] columns) {
+		int size = columns.length == 0 ? 0 : columns[0].length;
+		return new ColumnarDataset(attributes, columns, new int[size], new double[0]);
+	}
+
+	// Returns distinct values of input array in ascending order
+	public static double[] distinctSorted(double[] values) {
+		double[] sorted = Arrays.copyOf(values, values.length);
+		Arrays.sort(sorted);
+		int distinct = 0;
+		for (int i = 0; i < sorted.length; i++) {
+			if (i == 0 || sorted[i] != sorted[distinct - 1]) {
+				sorted[distinct++] = sorted[i];
+			}
+		}
+		return Arrays.copyOf(sorted, distinct);
+	}
+
+	// Number of instances
+	public int size() {
+		return classCodes.length;
+	}
+
+	public int attributeCount() {
+		return columns.length;
+	}
+
+	public List<String> getAttributes() {
+		return attributes;
+	}
+
+	// Returns column index of attribute. -1 if attribute not present
+	public int indexOf(String attribute) {
+		Integer index = attributeIndex.get(attribute);
+		return null == index ? -1 : index;
+	}
+
+	// Resolve list of attribute names to column indices
+	public int[] indicesOf(List<String> attributeNames) {
+		int[] indices = new int[attributeNames.size()];
+		for (int i = 0; i < indices.length; i++) {
+			indices[i] = indexOf(attributeNames.get(i));
+			if (indices[i] < 0) {
+				throw new IllegalArgumentException("Unknown attribute: " + attributeNames.get(i));
+			}
+		}
+		return indices;
+	}
+
+	public String getAttribute(int index) {
+		return attributes.get(index);
+	}
+
+	public double[] getColumn(int index) {
+		return columns[index];
+	}
+
+	public double value(int attribute, int row) {
+		return columns[attribute][row];
+	}
+
+	public int[] getClassCodes() {
+		return classCodes;
+	}
+
+	public int classCode(int row) {
+		return classCodes[row];
+	}
+
+	// Number of distinct class values
+	public int classCount() {
+		return classes.size();
+	}
+
+	public ClassDictionary getClassDictionary() {
+		return classes;
+	}
+
+	public double[] getClassValues() {
+		return classes.getValues();
+	}
+
+	public double classValue(int code) {
+		return classes.value(code);
+	}
+
+	// Class value as printed in reports. Same String instance for every call with
+	// code, see ClassDictionary
+	public String classLabel(int code) {
+		return classes.label(code);
+	}
+
+	// Report form of class value, see ClassDictionary.label(double)
+	public static String classLabel(double value) {
+		return ClassDictionary.label(value);
+	}
+
+	// Copy attribute values for row into features array. Array indexed by column
+	public double[] row(int row, double[] features) {
+		for (int attr = 0; attr < columns.length; attr++) {
+			features[attr] = columns[attr][row];
+		}
+		return features;
+	}
+
+	public double[] row(int row) {
+		return row(row, new double[columns.length]);
+	}
+
+	// Returns new data set containing only specified rows, in order given
+	public ColumnarDataset select(int[] rows) {
+		double[][] selected = new double[columns.length][rows.length];
+		int[] selectedCodes = new int[rows.length];
+		for (int i = 0; i < rows.length; i++) {
+			for (int attr = 0; attr < columns.length; attr++) {
+				selected[attr][i] = columns[attr][rows[i]];
+			}
+			selectedCodes[i] = classCodes[rows[i]];
+		}
+		return new ColumnarDataset(attributes, selected, selectedCodes, classes);
+	}
+
+	@Override
+	public String toString() {
+		return "ColumnarDataset [attributes=" + attributes + ", size=" + size() + ", classValues="
+				+ Arrays.toString(classes.getValues()) + "]";
+	}
+}
@@ -0,0 +1,79 @@
+package com.sinha.id3.util;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+/*
+ * Compact immutable form of a trained forest. Holds compiled trees sharing one
+ * attribute name array and one class label array, and no training data, so many
+ * forests can be kept resident. Predictions are majority votes over trees
+ */
+public class CompiledForest {
+
+	private final CompiledTree[] trees;
+
+	public CompiledForest(CompiledTree[] trees) {
+		this.trees = trees.clone();
+	}
+
+	// Compile forest built on data set. Trees share attribute and label arrays
+	public static CompiledForest compile(List<Node> forest, ColumnarDataset data) {
+		return new CompiledForest(ForestUtils.compileForest(forest, data));
+	}
+
+	// Returns class code with most votes for feature vector. votes receives vote
+	// count per class code
+	public int predict(double[] features, int[] votes) {
+		return ForestUtils.vote(trees, features, votes);
+	}
+
+	// Returns class code with most votes for row of data set
+	public int predict(ColumnarDataset data, int row, int[] votes) {
+		return ForestUtils.vote(trees, data, row, votes);
+	}
+
+	// Predict class codes for rows of data set as one batch. See BatchScorer
+	public int[] predict(ColumnarDataset data, int[] rows, int[] voteCounts, ExecutorService executor) {
+		return BatchScorer.predict(trees, data, rows, voteCounts, executor);
+	}
+
+	// Trees of forest. Returned array is a copy
+	public CompiledTree[] getTrees() {
+		return trees.clone();
+	}
+
+	// Number of trees
+	public int size() {
+		return trees.length;
+	}
+
+	// Total number of compiled nodes over all trees
+	public int nodeCount() {
+		int count = 0;
+		for (CompiledTree tree : trees) {
+			count += tree.size();
+		}
+		return count;
+	}
+
+	public int classCount() {
+		return trees.length == 0 ? 0 : trees[0].classCount();
+	}
+
+	public String classLabel(int code) {
+		return trees.length == 0 ? "" : trees[0].classLabel(code);
+	}
+
+	// Estimated size of forest. Attribute names and class labels shared by trees
+	// counted once
+	public long memoryBytes() {
+		long size = MemorySize.ofObject(1, 0) + MemorySize.ofArray(trees.length, 4);
+		for (CompiledTree tree : trees) {
+			size += tree.nodeMemoryBytes();
+		}
+		if (trees.length > 0) {
+			size += trees[0].memoryBytes() - trees[0].nodeMemoryBytes();
+		}
+		return size;
+	}
+}
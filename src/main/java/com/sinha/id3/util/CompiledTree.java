@@ -0,0 +1,248 @@
+package com.sinha.id3.util;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Flat array form of a trained tree used for inference. Each Node becomes one
+ * slot in parallel primitive arrays (feature index, threshold, left and right
+ * child). A child >= 0 is the slot of the next node. A child < 0 is a leaf
+ * holding class code -child - 2 (-1 for UNKNOWN_CLASS). Slots are laid out in
+ * depth first order so the left child usually follows its parent in memory.
+ *
+ * Immutable and independent of training data: holds no rows, only attribute
+ * names (index -> name) and class labels (code -> label), which trees of one
+ * forest share
+ */
+public class CompiledTree {
+
+	// Returned by predict when no class could be assigned (eg. NaN feature value or
+	// leaf without classification)
+	public static final int UNKNOWN_CLASS = -1;
+
+	// Feature (column) index tested at each node
+	private final int[] feature;
+
+	// Split value at each node. Values <= threshold go left
+	private final double[] threshold;
+
+	// Left child slot or encoded leaf class
+	private final int[] left;
+
+	// Right child slot or encoded leaf class
+	private final int[] right;
+
+	// Feature index -> attribute name
+	private final String[] attributes;
+
+	// Class code -> class label. Only used at reporting boundary
+	private final String[] classLabels;
+
+	CompiledTree(int[] feature, double[] threshold, int[] left, int[] right, String[] attributes,
+			String[] classLabels) {
+		this.feature = feature;
+		this.threshold = threshold;
+		this.left = left;
+		this.right = right;
+		this.attributes = attributes;
+		this.classLabels = classLabels;
+	}
+
+	// Compile tree built on data set. Split attributes and class labels resolved
+	// against attributes and class values of data set
+	public static CompiledTree compile(Node root, ColumnarDataset data) {
+		return compile(root, data.getAttributes().toArray(new String[0]), classLabels(data));
+	}
+
+	// Compile tree for feature vectors laid out as in attributes list
+	public static CompiledTree compile(Node root, List<String> attributes, String[] classLabels) {
+		return compile(root, attributes.toArray(new String[0]), classLabels.clone());
+	}
+
+	// Class labels of data set indexed by class code
+	static String[] classLabels(ColumnarDataset data) {
+		String[] classLabels = new String[data.classCount()];
+		for (int code = 0; code < classLabels.length; code++) {
+			classLabels[code] = data.classLabel(code);
+		}
+		return classLabels;
+	}
+
+	// Compile tree referencing given attribute and label arrays, which are not
+	// copied so trees of a forest can share them
+	static CompiledTree compile(Node root, String[] attributes, String[] classLabels) {
+		Map<String, Integer> featureIndex = new HashMap<>();
+		for (int i = 0; i < attributes.length; i++) {
+			featureIndex.put(attributes[i], i);
+		}
+		Map<String, Integer> classCodes = new HashMap<>();
+		for (int code = 0; code < classLabels.length; code++) {
+			classCodes.put(classLabels[code], code);
+		}
+
+		// Assign slots in depth first order, left before right
+		Map<Node, Integer> slots = new IdentityHashMap<>();
+		Deque<Node> stack = new ArrayDeque<>();
+		stack.push(root);
+		while (!stack.isEmpty()) {
+			Node node = stack.pop();
+			slots.put(node, slots.size());
+			if (null != node.getRightNode()) {
+				stack.push(node.getRightNode());
+			}
+			if (null != node.getLeftNode()) {
+				stack.push(node.getLeftNode());
+			}
+		}
+
+		int size = slots.size();
+		int[] feature = new int[size];
+		double[] threshold = new double[size];
+		int[] left = new int[size];
+		int[] right = new int[size];
+		for (Map.Entry<Node, Integer> entry : slots.entrySet()) {
+			Node node = entry.getKey();
+			int slot = entry.getValue();
+			Integer index = featureIndex.get(node.getSplitAttr());
+			if (null == index) {
+				throw new IllegalArgumentException("Unknown split attribute: " + node.getSplitAttr());
+			}
+			feature[slot] = index;
+			threshold[slot] = node.getSplitVal().doubleValue();
+			left[slot] = null != node.getLeftNode() ? slots.get(node.getLeftNode())
+					: leaf(classCodes, classLabels, node.getLeftClassCode(), node.getLeftClassification());
+			right[slot] = null != node.getRightNode() ? slots.get(node.getRightNode())
+					: leaf(classCodes, classLabels, node.getRightClassCode(), node.getRightClassification());
+		}
+		return new CompiledTree(feature, threshold, left, right, attributes, classLabels);
+	}
+
+	// Encode leaf class as negative child. Class code of node used as is when it
+	// names the same label in classLabels, ie. tree was built on a data set with
+	// the same class dictionary. Otherwise code looked up by label. Unknown
+	// labels encoded as UNKNOWN_CLASS
+	private static int leaf(Map<String, Integer> classCodes, String[] classLabels, int classCode,
+			String classification) {
+		if (classCode >= 0 && classCode < classLabels.length && classLabels[classCode].equals(classification)) {
+			return encodeLeaf(classCode);
+		}
+		Integer code = null == classification ? null : classCodes.get(classification);
+		return encodeLeaf(null == code ? UNKNOWN_CLASS : code);
+	}
+
+	// Child value for leaf with class code
+	static int encodeLeaf(int classCode) {
+		return -classCode - 2;
+	}
+
+	// Class code of leaf child value
+	static int decodeLeaf(int child) {
+		return -child - 2;
+	}
+
+	// Returns predicted class code for feature vector. No allocation
+	public int predict(double[] features) {
+		int node = 0;
+		while (true) {
+			double value = features[feature[node]];
+			int next;
+			if (value <= threshold[node]) {
+				next = left[node];
+			} else if (value > threshold[node]) {
+				next = right[node];
+			} else {
+				return UNKNOWN_CLASS;
+			}
+			if (next < 0) {
+				return decodeLeaf(next);
+			}
+			node = next;
+		}
+	}
+
+	// Returns predicted class code for row of columnar data set. Reads columns
+	// directly instead of copying row into feature vector
+	public int predict(ColumnarDataset data, int row) {
+		int node = 0;
+		while (true) {
+			double value = data.value(feature[node], row);
+			int next;
+			if (value <= threshold[node]) {
+				next = left[node];
+			} else if (value > threshold[node]) {
+				next = right[node];
+			} else {
+				return UNKNOWN_CLASS;
+			}
+			if (next < 0) {
+				return decodeLeaf(next);
+			}
+			node = next;
+		}
+	}
+
+	// Predict class codes for rows[from..to) of data set into out[from..to). Tight
+	// loop used for tree major batch scoring
+	public void predict(ColumnarDataset data, int[] rows, int from, int to, int[] out) {
+		for (int i = from; i < to; i++) {
+			out[i] = predict(data, rows[i]);
+		}
+	}
+
+	// Class label for class code. Empty for UNKNOWN_CLASS in line with
+	// CrossFoldValidation.predict
+	public String classLabel(int code) {
+		return code == UNKNOWN_CLASS ? "" : classLabels[code];
+	}
+
+	public int classCount() {
+		return classLabels.length;
+	}
+
+	// Number of compiled nodes
+	public int size() {
+		return feature.length;
+	}
+
+	// Raw node fields of slot, for serialization
+	int featureAt(int slot) {
+		return feature[slot];
+	}
+
+	double thresholdAt(int slot) {
+		return threshold[slot];
+	}
+
+	int leftAt(int slot) {
+		return left[slot];
+	}
+
+	int rightAt(int slot) {
+		return right[slot];
+	}
+
+	// Attribute name of feature index
+	public String getAttribute(int index) {
+		return attributes[index];
+	}
+
+	public int attributeCount() {
+		return attributes.length;
+	}
+
+	// Estimated size of node arrays, excluding attribute names and class labels
+	public long nodeMemoryBytes() {
+		return MemorySize.ofObject(6, 0) + MemorySize.ofArray(feature.length, 4)
+				+ MemorySize.ofArray(threshold.length, 8) + MemorySize.ofArray(left.length, 4)
+				+ MemorySize.ofArray(right.length, 4);
+	}
+
+	// Estimated size of tree including attribute names and class labels
+	public long memoryBytes() {
+		return nodeMemoryBytes() + MemorySize.ofStrings(attributes) + MemorySize.ofStrings(classLabels);
+	}
+}
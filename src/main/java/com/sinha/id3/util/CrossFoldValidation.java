@@ -2,9 +2,13 @@ package com.sinha.id3.util;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
@@ -114,6 +118,169 @@ public class CrossFoldValidation {
 		printStatistics(cm, "ID3 Mode Split(" + maxDepth + ")");
 	}
 
+	// Perform k-Fold cross validation for greedy split search tree on columnar data
+	// set. Folds are contiguous partitions of ceil(size/k) instances, trained and
+	// evaluated in parallel as tasks in pool
+	public static void kFoldCrossEvalGreedy(List<String> attributes, ColumnarDataset data, int k,
+			ForkJoinPool pool) throws IOException {
+		kFoldCrossEvalGreedy(attributes, data, k, TreeBuildConfig.DEFAULT, pool);
+	}
+
+	// k-Fold cross validation for greedy split search tree with each fold's tree
+	// grown within limits of config
+	public static void kFoldCrossEvalGreedy(List<String> attributes, ColumnarDataset data, int k,
+			TreeBuildConfig config, ForkJoinPool pool) throws IOException {
+		LOGGER.info("Performing {}-Fold Cross-Validation Greedy Split", k);
+		FoldMetrics metrics = evaluateFolds(data, k, pool,
+				trainingRows -> TreeUtility.generateTreeGreedySplit(attributes, data, trainingRows, config, pool));
+		reportFoldMetrics(metrics, data, "Greedy Split", "ID3 Greedy Split");
+	}
+
+	// Perform k-Fold cross validation for mid split tree on columnar data set. Folds
+	// trained and evaluated in parallel as tasks in pool
+	public static void kFoldCrossEvalOnMid(List<String> attributes, ColumnarDataset data, int k, int maxDepth,
+			ForkJoinPool pool) throws IOException {
+		LOGGER.info("Performing {}-Fold Cross-Validation Mode Split", k);
+		FoldMetrics metrics = evaluateFolds(data, k, pool,
+				trainingRows -> TreeUtility.generateTreeMidSplit(attributes, data, trainingRows, maxDepth, pool));
+		reportFoldMetrics(metrics, data, "Mode Split w Max Depth " + maxDepth, "ID3 Mode Split(" + maxDepth + ")");
+	}
+
+	// k-Fold cross validation of mid split trees for each of depths. Each fold grows
+	// one tree to the largest depth and evaluates its prefix at every depth, so a
+	// sweep costs about one build per fold instead of one per fold and depth
+	public static void kFoldCrossEvalOnMid(List<String> attributes, ColumnarDataset data, int k, int[] depths,
+			ForkJoinPool pool) throws IOException {
+		LOGGER.info("Performing {}-Fold Cross-Validation Mode Split for depths {}", k, Arrays.toString(depths));
+		int maxDepth = Arrays.stream(depths).max().orElseThrow(() -> new IllegalArgumentException("No depths"));
+		int[][] partitions = Utility.partitionRows(data.size(), k);
+		List<Callable<FoldMetrics[]>> folds = new ArrayList<>();
+		for (int i = 0; i < partitions.length; i++) {
+			int fold = i;
+			folds.add(() -> {
+				Node rootNode = TreeUtility.generateTreeMidSplit(attributes, data,
+						Utility.trainingRows(partitions, fold), maxDepth, pool);
+				FoldMetrics[] metrics = new FoldMetrics[depths.length];
+				for (int d = 0; d < depths.length; d++) {
+					metrics[d] = new FoldMetrics(data.classCount());
+					evaluateOnSet(NodeUtility.prefix(rootNode, depths[d], data), data, partitions[fold], metrics[d]);
+				}
+				return metrics;
+			});
+		}
+		List<FoldMetrics[]> results = BuildPool.invokeAll(pool, folds);
+		for (int d = 0; d < depths.length; d++) {
+			List<FoldMetrics> depthFolds = new ArrayList<>();
+			for (FoldMetrics[] result : results) {
+				depthFolds.add(result[d]);
+			}
+			reportFoldMetrics(FoldMetrics.mergeAll(data.classCount(), depthFolds), data,
+					"Mode Split w Max Depth " + depths[d], "ID3 Mode Split(" + depths[d] + ")");
+		}
+	}
+
+	// Build tree on training rows of each fold and evaluate it on test rows. Each
+	// fold is a task in pool counting into its own FoldMetrics. Fold results merged
+	// in fold order
+	private static FoldMetrics evaluateFolds(ColumnarDataset data, int k, ForkJoinPool pool,
+			Function<int[], Node> treeBuilder) {
+		int[][] partitions = Utility.partitionRows(data.size(), k);
+		List<Callable<FoldMetrics>> folds = new ArrayList<>();
+		for (int i = 0; i < partitions.length; i++) {
+			int fold = i;
+			folds.add(() -> {
+				Node rootNode = treeBuilder.apply(Utility.trainingRows(partitions, fold));
+				FoldMetrics metrics = new FoldMetrics(data.classCount());
+				evaluateOnSet(rootNode, data, partitions[fold], metrics);
+				return metrics;
+			});
+		}
+		return FoldMetrics.mergeAll(data.classCount(), BuildPool.invokeAll(pool, folds));
+	}
+
+	// Plot ROC curves and print statistics for merged fold results
+	private static void reportFoldMetrics(FoldMetrics metrics, ColumnarDataset data, String typeDecision, String id)
+			throws IOException {
+		ConfusionMatrix cm = new ConfusionMatrix();
+		metrics.addTo(cm, data);
+		List<ClassMetrics> classMetrics = prepareClassMetrics(data);
+		metrics.addTo(classMetrics);
+		plotClassMetrics(classMetrics, typeDecision);
+		printStatistics(cm, id);
+	}
+
+	// Compare histogram binned split search against exact greedy split search with
+	// k-Fold cross validation on same folds, both grown within limits of config.
+	// Logs accuracy of both modes, their difference, prediction agreement and build
+	// times. Returns accuracy difference (binned - exact)
+	public static double compareBinnedToExact(List<String> attributes, ColumnarDataset data, int k, int maxBins,
+			TreeBuildConfig config, ForkJoinPool pool) {
+		LOGGER.info("Comparing binned split search (max bins {}) with exact search. {}-Fold", maxBins, k);
+		int[][] partitions = Utility.partitionRows(data.size(), k);
+		long exactCorrect = 0;
+		long binnedCorrect = 0;
+		long agreed = 0;
+		long total = 0;
+		long exactTime = 0;
+		long binnedTime = 0;
+		for (int i = 0; i < partitions.length; i++) {
+			int[] trainingRows = Utility.trainingRows(partitions, i);
+			long start = System.currentTimeMillis();
+			Node exactRoot = TreeUtility.generateTreeGreedySplit(attributes, data, trainingRows, config, pool);
+			exactTime += System.currentTimeMillis() - start;
+
+			// Bins determined from training rows only
+			start = System.currentTimeMillis();
+			BinnedDataset binned = BinnedDataset.build(data, trainingRows, maxBins);
+			Node binnedRoot = TreeUtility.generateTreeBinnedSplit(attributes, binned, trainingRows, config, pool);
+			binnedTime += System.currentTimeMillis() - start;
+
+			for (int row : partitions[i]) {
+				int actualClass = data.classCode(row);
+				int exactClass = predictCode(exactRoot, data, row);
+				int binnedClass = predictCode(binnedRoot, data, row);
+				exactCorrect += actualClass == exactClass ? 1 : 0;
+				binnedCorrect += actualClass == binnedClass ? 1 : 0;
+				agreed += exactClass == binnedClass ? 1 : 0;
+			}
+			total += partitions[i].length;
+		}
+		double exactAccuracy = (double) exactCorrect / (double) total;
+		double binnedAccuracy = (double) binnedCorrect / (double) total;
+		LOGGER.info("Exact Accuracy: {}, Build Time: {}", exactAccuracy, exactTime);
+		LOGGER.info("Binned Accuracy: {}, Build Time: {}", binnedAccuracy, binnedTime);
+		LOGGER.info("Accuracy Difference (binned - exact): {}", binnedAccuracy - exactAccuracy);
+		LOGGER.info("Prediction Agreement: {}", (double) agreed / (double) total);
+		return binnedAccuracy - exactAccuracy;
+	}
+
+	// ClassMetrics for each class value present in data set
+	private static List<ClassMetrics> prepareClassMetrics(ColumnarDataset data) {
+		List<ClassMetrics> classMetrics = new ArrayList<>();
+		for (int code = 0; code < data.classCount(); code++) {
+			classMetrics.add(new ClassMetrics(data.classLabel(code)));
+		}
+		return classMetrics;
+	}
+
+	// Plot ROC Curve for each class value and for all classes together
+	private static void plotClassMetrics(List<ClassMetrics> classMetrics, String typeDecision) throws IOException {
+		for (ClassMetrics classMetric : classMetrics) {
+			new PlotGraph("Class " + classMetric.getClassValue(), classMetric, typeDecision);
+		}
+		new AreaChart(classMetrics, typeDecision);
+	}
+
+	// Evaluate tree on test rows of columnar data set. Tree compiled to flat arrays
+	// and test rows scored as one batch. Counts added to metrics of fold
+	private static void evaluateOnSet(Node rootNode, ColumnarDataset data, int[] testRows, FoldMetrics metrics) {
+		CompiledTree tree = CompiledTree.compile(rootNode, data);
+		int[] predictions = BatchScorer.predict(tree, data, testRows);
+		for (int i = 0; i < testRows.length; i++) {
+			metrics.add(data.classCode(testRows[i]), predictions[i]);
+		}
+	}
+
 	// Evaluate tree on test set specified
 	private static void evaluateOnSet(Node rootNode, List<InputSet> inputList, ConfusionMatrix confusionMatrix,
 			ClassMetrics class1, ClassMetrics class2, ClassMetrics class3) {
@@ -181,6 +348,55 @@ public class CrossFoldValidation {
 		return StringUtils.EMPTY;
 	}
 
+	// Gets predicted class code for row of columnar data set. Tree must have been
+	// built on data set with same attribute columns and class dictionary.
+	// CompiledTree.UNKNOWN_CLASS if no leaf reached or leaf has no class code
+	public static int predictCode(Node rootNode, ColumnarDataset data, int row) {
+		Node node = rootNode;
+		while (null != node) {
+			double attrVal = data.value(node.getSplitIndex(), row);
+			double splitVal = node.getSplitVal().doubleValue();
+			if (attrVal <= splitVal) {
+				if (null == node.getLeftNode()) {
+					return node.getLeftClassCode();
+				}
+				node = node.getLeftNode();
+			} else if (attrVal > splitVal) {
+				if (null == node.getRightNode()) {
+					return node.getRightClassCode();
+				}
+				node = node.getRightNode();
+			} else {
+				break;
+			}
+		}
+		return CompiledTree.UNKNOWN_CLASS;
+	}
+
+	// Gets predicted class code for feature vector indexed by column of data set
+	// tree was built on
+	public static int predictCode(Node rootNode, double[] features) {
+		Node node = rootNode;
+		while (null != node) {
+			double attrVal = features[node.getSplitIndex()];
+			double splitVal = node.getSplitVal().doubleValue();
+			if (attrVal <= splitVal) {
+				if (null == node.getLeftNode()) {
+					return node.getLeftClassCode();
+				}
+				node = node.getLeftNode();
+			} else if (attrVal > splitVal) {
+				if (null == node.getRightNode()) {
+					return node.getRightClassCode();
+				}
+				node = node.getRightNode();
+			} else {
+				break;
+			}
+		}
+		return CompiledTree.UNKNOWN_CLASS;
+	}
+
 	// Print Evaluation Statistics from Confusion Matrix
 	public static void printStatistics(ConfusionMatrix cm, String id) {
 		LOGGER.info("Confusion Matrix for {}: \n{}", id, cm);
@@ -0,0 +1,216 @@
+package com.sinha.id3.util;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/*
+ * Reads comma separated data set file straight into primitive columns. File is
+ * memory mapped in windows and numbers are parsed directly from bytes, so no
+ * String, String[] or Number is created per line or cell. Same format as
+ * ReadInput.readFile(): class value at index 0 followed by one value per
+ * attribute, '.' as decimal separator. Values parse to the same double as with
+ * NumberFormat, except that a lower case exponent ("1e-6") is honoured rather
+ * than ignored
+ */
+public class CsvColumnParser {
+
+	// Largest region mapped at once. Lines never span two windows
+	private static final long WINDOW_SIZE = 1L << 30;
+
+	// Decimal mantissas up to this value convert exactly to double
+	private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+	// Exact powers of ten representable as double
+	private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+	private final int attributeCount;
+
+	// Class value and attribute column builders
+	private final ColumnBuilder classBuilder = new ColumnBuilder();
+	private final ColumnBuilder[] columnBuilders;
+
+	// Window being parsed and parse position within it
+	private MappedByteBuffer buffer;
+	private int pos;
+
+	// Line number for error messages
+	private long lineNumber;
+
+	private CsvColumnParser(int attributeCount) {
+		this.attributeCount = attributeCount;
+		this.columnBuilders = new ColumnBuilder[attributeCount];
+		for (int i = 0; i < attributeCount; i++) {
+			columnBuilders[i] = new ColumnBuilder();
+		}
+	}
+
+	// Parse file at path into columnar data set with given attribute names
+	public static ColumnarDataset parse(String path, List<String> attributes) throws IOException {
+		CsvColumnParser parser = new CsvColumnParser(attributes.size());
+		parser.parseFile(path);
+		double[][] columns = new double[attributes.size()][];
+		for (int i = 0; i < columns.length; i++) {
+			columns[i] = parser.columnBuilders[i].toArray();
+		}
+		double[] rawClasses = parser.classBuilder.toArray();
+		ClassDictionary classes = ClassDictionary.of(rawClasses);
+		return new ColumnarDataset(attributes, columns, classes.encode(rawClasses), classes);
+	}
+
+	private void parseFile(String path) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+			long fileSize = channel.size();
+			long windowStart = 0;
+			while (windowStart < fileSize) {
+				long windowSize = Math.min(WINDOW_SIZE, fileSize - windowStart);
+				boolean lastWindow = windowStart + windowSize == fileSize;
+				buffer = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowSize);
+				int consumed = parseWindow(lastWindow);
+				if (consumed == 0) {
+					throw new IOException("Line " + (lineNumber + 1) + " longer than " + WINDOW_SIZE + " bytes");
+				}
+				windowStart += consumed;
+			}
+		}
+	}
+
+	// Parse all complete lines of current window. Returns number of bytes consumed.
+	// Incomplete last line left for next window unless this is the last window
+	private int parseWindow(boolean lastWindow) throws IOException {
+		int limit = buffer.limit();
+		int lineStart = 0;
+		while (lineStart < limit) {
+			int lineEnd = lineStart;
+			while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+				lineEnd++;
+			}
+			if (lineEnd == limit && !lastWindow) {
+				return lineStart;
+			}
+			lineNumber++;
+			int contentEnd = lineEnd;
+			if (contentEnd > lineStart && buffer.get(contentEnd - 1) == '\r') {
+				contentEnd--;
+			}
+			if (contentEnd > lineStart) {
+				parseLine(lineStart, contentEnd);
+			}
+			lineStart = lineEnd + 1;
+		}
+		return limit;
+	}
+
+	// Parse one line. Class value at field 0, attribute values after. Fields beyond
+	// attribute count are ignored
+	private void parseLine(int start, int end) throws IOException {
+		pos = start;
+		classBuilder.add(parseField(end));
+		for (int i = 0; i < attributeCount; i++) {
+			if (pos >= end) {
+				throw new IOException("Line " + lineNumber + ": expected " + (attributeCount + 1) + " values");
+			}
+			columnBuilders[i].add(parseField(end));
+		}
+	}
+
+	// Parse number at pos and move pos past next comma. Like NumberFormat.parse(),
+	// characters after the number within the field are ignored
+	private double parseField(int end) throws IOException {
+		int fieldStart = pos;
+		int fieldEnd = pos;
+		while (fieldEnd < end && buffer.get(fieldEnd) != ',') {
+			fieldEnd++;
+		}
+		pos = fieldEnd + 1;
+
+		int i = fieldStart;
+		while (i < fieldEnd && buffer.get(i) == ' ') {
+			i++;
+		}
+		boolean negative = false;
+		if (i < fieldEnd && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+			negative = buffer.get(i) == '-';
+			i++;
+		}
+
+		// Mantissa digits and decimal exponent. At most 18 significant digits are
+		// accumulated, longer numbers take the fallback path
+		long mantissa = 0;
+		int exponent = 0;
+		int digits = 0;
+		int significant = 0;
+		boolean overflow = false;
+		boolean fraction = false;
+		for (; i < fieldEnd; i++) {
+			byte b = buffer.get(i);
+			if (b == '.' && !fraction) {
+				fraction = true;
+				continue;
+			}
+			if (!isDigit(b)) {
+				break;
+			}
+			digits++;
+			if (significant < 18) {
+				mantissa = mantissa * 10 + (b - '0');
+				significant += mantissa == 0 ? 0 : 1;
+				exponent -= fraction ? 1 : 0;
+			} else {
+				overflow = true;
+			}
+		}
+		if (digits == 0) {
+			throw new IOException(
+					"Line " + lineNumber + ": unparseable number \"" + text(fieldStart, fieldEnd) + "\"");
+		}
+		int numberEnd = i;
+		if (i < fieldEnd && (buffer.get(i) == 'e' || buffer.get(i) == 'E')) {
+			int j = i + 1;
+			boolean negativeExponent = false;
+			if (j < fieldEnd && (buffer.get(j) == '-' || buffer.get(j) == '+')) {
+				negativeExponent = buffer.get(j) == '-';
+				j++;
+			}
+			int exponentValue = 0;
+			int exponentDigits = 0;
+			while (j < fieldEnd && isDigit(buffer.get(j)) && exponentValue < 100000) {
+				exponentValue = exponentValue * 10 + (buffer.get(j) - '0');
+				exponentDigits++;
+				j++;
+			}
+			if (exponentDigits > 0) {
+				exponent += negativeExponent ? -exponentValue : exponentValue;
+				numberEnd = j;
+			}
+		}
+
+		// Fast path exact when mantissa and power of ten are both exact doubles, since
+		// a single multiplication or division is correctly rounded
+		if (!overflow && mantissa <= MAX_EXACT_MANTISSA && exponent >= -22 && exponent <= 22) {
+			double value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent]
+					: mantissa * POWERS_OF_TEN[exponent];
+			return negative ? -value : value;
+		}
+
+		// Rare long or extreme numbers. Fall back to correctly rounded JDK parser
+		return Double.parseDouble(text(fieldStart, numberEnd).trim());
+	}
+
+	private static boolean isDigit(byte b) {
+		return b >= '0' && b <= '9';
+	}
+
+	private String text(int start, int end) {
+		byte[] bytes = new byte[end - start];
+		for (int i = start; i < end; i++) {
+			bytes[i - start] = buffer.get(i);
+		}
+		return new String(bytes, StandardCharsets.US_ASCII);
+	}
+}
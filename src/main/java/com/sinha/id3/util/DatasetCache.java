@@ -0,0 +1,252 @@
+package com.sinha.id3.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/*
+ * Binary on-disk form of a parsed data set, stored beside the source file as
+ * <source>.id3bin. Layout (little endian):
+ *
+ * header: magic, version, source length, source last modified, source sample
+ * checksum, row count, attribute count, class count, attribute names (length +
+ * UTF-8 bytes), class values (double), padding to 8 bytes
+ *
+ * body: class codes (int per row), padding to 8 bytes, then one block of
+ * doubles per attribute (column major)
+ *
+ * Cache is valid only while source length, last modified time, CRC32 of first
+ * and last SAMPLE_BYTES of source and attribute names match header. An edit in
+ * the middle of a large source that keeps its length and modification time
+ * (eg. restored with touch) is not detected; delete the cache then. Blocks are
+ * read and written through memory mappings of at most WINDOW_BYTES each, so
+ * caches and columns over 2 GiB load as well
+ */
+public class DatasetCache {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(DatasetCache.class);
+
+	// "ID3D"
+	private static final int MAGIC = 0x44334449;
+
+	private static final int VERSION = 2;
+
+	// Bytes at each end of source covered by sample checksum
+	private static final int SAMPLE_BYTES = 64 * 1024;
+
+	// Largest mapping, a multiple of 8 below Integer.MAX_VALUE
+	private static final int WINDOW_BYTES = 1 << 30;
+
+	public static final String EXTENSION = ".id3bin";
+
+	// Cache file used for source file
+	public static File cacheFile(String sourcePath) {
+		return new File(sourcePath + EXTENSION);
+	}
+
+	// Load data set from cache of source file. Returns null when cache missing,
+	// unreadable or stale (source changed or different attributes requested)
+	public static ColumnarDataset load(String sourcePath, List<String> attributes) {
+		File source = new File(sourcePath);
+		File cache = cacheFile(sourcePath);
+		if (!cache.isFile()) {
+			return null;
+		}
+		try (FileChannel channel = FileChannel.open(cache.toPath(), StandardOpenOption.READ)) {
+			// Header and class values, within first window
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+					Math.min(channel.size(), WINDOW_BYTES));
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+			if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+				LOGGER.info("Ignoring cache {}: unknown format", cache);
+				return null;
+			}
+			if (buffer.getLong() != source.length() || buffer.getLong() != source.lastModified()
+					|| buffer.getLong() != sampleChecksum(source)) {
+				LOGGER.info("Ignoring cache {}: source file changed", cache);
+				return null;
+			}
+			int rows = buffer.getInt();
+			int attributeCount = buffer.getInt();
+			int classCount = buffer.getInt();
+			List<String> cachedAttributes = new ArrayList<>();
+			for (int i = 0; i < attributeCount; i++) {
+				byte[] name = new byte[buffer.getInt()];
+				buffer.get(name);
+				cachedAttributes.add(new String(name, StandardCharsets.UTF_8));
+			}
+			if (!cachedAttributes.equals(attributes)) {
+				LOGGER.info("Ignoring cache {}: attributes differ", cache);
+				return null;
+			}
+			buffer.position(align(buffer.position()));
+			double[] classValues = new double[classCount];
+			buffer.asDoubleBuffer().get(classValues);
+			long position = align(buffer.position() + (long) classCount * Double.BYTES);
+			long totalSize = align(position + (long) rows * Integer.BYTES)
+					+ (long) attributeCount * rows * Double.BYTES;
+			if (channel.size() != totalSize) {
+				LOGGER.info("Ignoring cache {}: truncated", cache);
+				return null;
+			}
+
+			int[] classCodes = new int[rows];
+			position = align(readInts(channel, position, classCodes));
+			double[][] columns = new double[attributeCount][rows];
+			for (int i = 0; i < attributeCount; i++) {
+				position = readDoubles(channel, position, columns[i]);
+			}
+			return new ColumnarDataset(attributes, columns, classCodes, classValues);
+		} catch (IOException | RuntimeException e) {
+			LOGGER.warn("Ignoring unreadable cache {}: {}", cache, e.toString());
+			return null;
+		}
+	}
+
+	// Write data set to cache of source file. Written to temporary file first and
+	// moved in place so readers never see partial cache
+	public static void write(String sourcePath, ColumnarDataset data) throws IOException {
+		File source = new File(sourcePath);
+		Path cache = cacheFile(sourcePath).toPath();
+		Path temp = Paths.get(cache.toString() + ".tmp");
+
+		List<byte[]> names = new ArrayList<>();
+		int headerSize = 4 + 4 + 8 + 8 + 8 + 4 + 4 + 4;
+		for (String attribute : data.getAttributes()) {
+			byte[] name = attribute.getBytes(StandardCharsets.UTF_8);
+			names.add(name);
+			headerSize += 4 + name.length;
+		}
+		int rows = data.size();
+		long classValuesEnd = align(headerSize) + (long) data.classCount() * Double.BYTES;
+		long codesEnd = align(classValuesEnd) + (long) rows * Integer.BYTES;
+		long totalSize = align(codesEnd) + (long) data.attributeCount() * rows * Double.BYTES;
+
+		try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			ByteBuffer header = ByteBuffer.allocate(align(headerSize)).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(MAGIC).putInt(VERSION).putLong(source.length()).putLong(source.lastModified())
+					.putLong(sampleChecksum(source));
+			header.putInt(rows).putInt(data.attributeCount()).putInt(data.classCount());
+			for (byte[] name : names) {
+				header.putInt(name.length).put(name);
+			}
+			header.rewind();
+			channel.write(header, 0);
+
+			// Body written through mappings of at most one window at a time
+			long position = align(headerSize);
+			position = writeDoubles(channel, position, data.getClassValues());
+			position = align(writeInts(channel, align(position), data.getClassCodes()));
+			for (int i = 0; i < data.attributeCount(); i++) {
+				position = writeDoubles(channel, position, data.getColumn(i));
+			}
+			if (position != totalSize) {
+				throw new IllegalStateException("Cache size mismatch: " + position + " != " + totalSize);
+			}
+		}
+		Files.move(temp, cache, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	// Write doubles at position. Returns position after last value
+	private static long writeDoubles(FileChannel channel, long position, double[] values) throws IOException {
+		int perWindow = WINDOW_BYTES / Double.BYTES;
+		for (int from = 0; from < values.length; from += perWindow) {
+			int count = Math.min(perWindow, values.length - from);
+			channel.map(FileChannel.MapMode.READ_WRITE, position, (long) count * Double.BYTES)
+					.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().put(values, from, count);
+			position += (long) count * Double.BYTES;
+		}
+		return position;
+	}
+
+	private static long writeInts(FileChannel channel, long position, int[] values) throws IOException {
+		int perWindow = WINDOW_BYTES / Integer.BYTES;
+		for (int from = 0; from < values.length; from += perWindow) {
+			int count = Math.min(perWindow, values.length - from);
+			channel.map(FileChannel.MapMode.READ_WRITE, position, (long) count * Integer.BYTES)
+					.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().put(values, from, count);
+			position += (long) count * Integer.BYTES;
+		}
+		return position;
+	}
+
+	// Fill values with doubles at position. Returns position after last value
+	private static long readDoubles(FileChannel channel, long position, double[] values) throws IOException {
+		int perWindow = WINDOW_BYTES / Double.BYTES;
+		for (int from = 0; from < values.length; from += perWindow) {
+			int count = Math.min(perWindow, values.length - from);
+			channel.map(FileChannel.MapMode.READ_ONLY, position, (long) count * Double.BYTES)
+					.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().get(values, from, count);
+			position += (long) count * Double.BYTES;
+		}
+		return position;
+	}
+
+	private static long readInts(FileChannel channel, long position, int[] values) throws IOException {
+		int perWindow = WINDOW_BYTES / Integer.BYTES;
+		for (int from = 0; from < values.length; from += perWindow) {
+			int count = Math.min(perWindow, values.length - from);
+			channel.map(FileChannel.MapMode.READ_ONLY, position, (long) count * Integer.BYTES)
+					.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(values, from, count);
+			position += (long) count * Integer.BYTES;
+		}
+		return position;
+	}
+
+	// CRC32 of first and last SAMPLE_BYTES of file (whole file when shorter)
+	private static long sampleChecksum(File file) throws IOException {
+		CRC32 crc = new CRC32();
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			ByteBuffer sample = ByteBuffer.allocate((int) Math.min(size, 2L * SAMPLE_BYTES));
+			if (size <= 2L * SAMPLE_BYTES) {
+				readFully(channel, sample, 0);
+			} else {
+				sample.limit(SAMPLE_BYTES);
+				readFully(channel, sample, 0);
+				sample.limit(2 * SAMPLE_BYTES);
+				readFully(channel, sample, size - SAMPLE_BYTES);
+			}
+			sample.flip();
+			crc.update(sample);
+		}
+		return crc.getValue();
+	}
+
+	// Read bytes up to limit of buffer from file, starting at offset
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long offset) throws IOException {
+		long position = offset;
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, position);
+			if (read < 0) {
+				throw new IOException("Source file shorter than expected");
+			}
+			position += read;
+		}
+	}
+
+	// Round up to multiple of 8
+	private static int align(int position) {
+		return (position + 7) & ~7;
+	}
+
+	private static long align(long position) {
+		return (position + 7) & ~7L;
+	}
+}
@@ -40,6 +40,40 @@ public class EntropyUtil {
 		return initialEntropy;
 	}
 
+	// Returns entropy for given class counts. Class codes with count 0 are skipped
+	public static double calculateEntropy(int[] classCounts) {
+		int totalCount = 0;
+		for (int count : classCounts) {
+			totalCount += count;
+		}
+		double initialEntropy = 0d;
+		for (int count : classCounts) {
+			if (count == 0) {
+				continue;
+			}
+			initialEntropy += (-1 * (double) count / (double) totalCount)
+					* logBase2((double) count / (double) totalCount);
+		}
+		return initialEntropy;
+	}
+
+	// Returns entropy for given class weights, eg. estimated counts. Class codes
+	// with weight 0 are skipped
+	public static double calculateEntropy(double[] classWeights) {
+		double totalWeight = 0d;
+		for (double weight : classWeights) {
+			totalWeight += weight;
+		}
+		double initialEntropy = 0d;
+		for (double weight : classWeights) {
+			if (weight <= 0d) {
+				continue;
+			}
+			initialEntropy += (-1 * weight / totalWeight) * logBase2(weight / totalWeight);
+		}
+		return initialEntropy;
+	}
+
 	private static double logBase2(double value) {
 		return Math.log(value) / Math.log(2);
 	}
@@ -121,8 +155,36 @@ public class EntropyUtil {
 		return splitInfoGains;
 	}
 
+	// Determine Info Gain for splitting rows of data set on attribute at splitVal
+	// given initial entropy = initEntropy
+	public static double gainBySplit(ColumnarDataset data, int[] rows, int attribute, double splitVal,
+			double initEntropy) {
+		return gainBySplit(data, rows, 0, rows.length, attribute, splitVal, initEntropy);
+	}
+
+	// Info Gain for splitting rows[from..to) of data set on attribute at splitVal
+	public static double gainBySplit(ColumnarDataset data, int[] rows, int from, int to, int attribute,
+			double splitVal, double initEntropy) {
+		double[] column = data.getColumn(attribute);
+		int[] classCodes = data.getClassCodes();
+		int[] leftCounts = new int[data.classCount()];
+		int[] rightCounts = new int[data.classCount()];
+		int leftCount = 0;
+		for (int i = from; i < to; i++) {
+			int row = rows[i];
+			if (column[row] <= splitVal) {
+				leftCounts[classCodes[row]]++;
+				leftCount++;
+			} else {
+				rightCounts[classCodes[row]]++;
+			}
+		}
+		return calculateInfoGain(initEntropy, calculateEntropy(leftCounts), calculateEntropy(rightCounts),
+				leftCount, to - from - leftCount);
+	}
+
 	// Calculate InfoGain using supplied variables
-	private static double calculateInfoGain(double initEntropy, double leftEntropy, double rightEntropy,
+	public static double calculateInfoGain(double initEntropy, double leftEntropy, double rightEntropy,
 			double leftCount, double rightCount) {
 		double totalCount = leftCount + rightCount;
 		double weightedEntropy = ((leftCount / totalCount) * leftEntropy) + ((rightCount / totalCount) * rightEntropy);
@@ -0,0 +1,123 @@
+package com.sinha.id3.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.habernal.confusionmatrix.ConfusionMatrix;
+import com.sinha.id3.ClassMetrics;
+
+/*
+ * Evaluation results of one cross validation fold, counted over class codes.
+ * Each fold fills its own instance so folds can be evaluated in parallel. Fold
+ * results are merged in fold order and only then applied to ConfusionMatrix and
+ * ClassMetrics, giving same values as evaluating folds one after another
+ */
+public class FoldMetrics {
+
+	private final int classCount;
+
+	// Count per (actual, predicted) pair: counts[actual][predicted + 1]. Column 0
+	// counts rows for which no class was predicted (CompiledTree.UNKNOWN_CLASS)
+	private final int[][] counts;
+
+	// Forest ROC scores and truths, in row order
+	private final List<Double> scores = new ArrayList<>();
+	private final List<Boolean> truths = new ArrayList<>();
+
+	public FoldMetrics(int classCount) {
+		this.classCount = classCount;
+		this.counts = new int[classCount][classCount + 1];
+	}
+
+	// Count row of actual class predicted as predicted class
+	public void add(int actualClass, int predictedClass) {
+		counts[actualClass][predictedClass + 1]++;
+	}
+
+	public void addScore(double score, boolean truth) {
+		scores.add(score);
+		truths.add(truth);
+	}
+
+	public int count(int actualClass, int predictedClass) {
+		return counts[actualClass][predictedClass + 1];
+	}
+
+	// Add counts of other fold to this one. Scores of other fold appended after
+	// scores of this fold. Returns this
+	public FoldMetrics merge(FoldMetrics other) {
+		if (other.classCount != classCount) {
+			throw new IllegalArgumentException("Class count " + other.classCount + " does not match " + classCount);
+		}
+		for (int actual = 0; actual < classCount; actual++) {
+			for (int predicted = 0; predicted <= classCount; predicted++) {
+				counts[actual][predicted] += other.counts[actual][predicted];
+			}
+		}
+		scores.addAll(other.scores);
+		truths.addAll(other.truths);
+		return this;
+	}
+
+	// Merge fold results in list order into new instance
+	public static FoldMetrics mergeAll(int classCount, List<FoldMetrics> folds) {
+		FoldMetrics merged = new FoldMetrics(classCount);
+		for (FoldMetrics fold : folds) {
+			merged.merge(fold);
+		}
+		return merged;
+	}
+
+	// Add counts to confusion matrix. Class labels taken from data set, rows
+	// without prediction counted under empty label
+	public void addTo(ConfusionMatrix cm, ColumnarDataset data) {
+		for (int actual = 0; actual < classCount; actual++) {
+			for (int predicted = CompiledTree.UNKNOWN_CLASS; predicted < classCount; predicted++) {
+				int count = count(actual, predicted);
+				if (count > 0) {
+					cm.increaseValue(data.classLabel(actual), predictedLabel(data, predicted), count);
+				}
+			}
+		}
+	}
+
+	// Add TP, FP, TN and FN counts to ClassMetrics of each class. classMetrics
+	// indexed by class code
+	public void addTo(List<ClassMetrics> classMetrics) {
+		for (int code = 0; code < classMetrics.size(); code++) {
+			int tp = 0;
+			int fp = 0;
+			int tn = 0;
+			int fn = 0;
+			for (int actual = 0; actual < classCount; actual++) {
+				for (int predicted = CompiledTree.UNKNOWN_CLASS; predicted < classCount; predicted++) {
+					int count = count(actual, predicted);
+					if (actual == predicted) {
+						tp += actual == code ? count : 0;
+						tn += actual == code ? 0 : count;
+					} else {
+						fn += actual == code ? count : 0;
+						fp += predicted == code ? count : 0;
+					}
+				}
+			}
+			ClassMetrics classMetric = classMetrics.get(code);
+			classMetric.tpCountPlus(tp);
+			classMetric.fpCountPlus(fp);
+			classMetric.tnCountPlus(tn);
+			classMetric.fnCountPlus(fn);
+		}
+	}
+
+	public List<Double> getScores() {
+		return scores;
+	}
+
+	public List<Boolean> getTruths() {
+		return truths;
+	}
+
+	private static String predictedLabel(ColumnarDataset data, int classCode) {
+		return classCode == CompiledTree.UNKNOWN_CLASS ? "" : data.classLabel(classCode);
+	}
+}
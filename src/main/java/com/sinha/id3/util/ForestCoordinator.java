@@ -0,0 +1,452 @@
+package com.sinha.id3.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/*
+ * Coordinator of distributed forest training. Worker processes (ForestWorker)
+ * connect to its port, from this host or others, and are sent the data set:
+ * as a path when they can load it, else inline. Trees of a forest are queued
+ * as tasks of tree index, attribute subset and, for bagged forests, bootstrap
+ * seed. These are drawn here from the forest seed in the same sequence as
+ * ForestUtils does, so a forest equals the one built in process with that seed
+ * however its trees are spread over workers.
+ *
+ * Each worker connection is served by its own thread with one tree in flight.
+ * A worker that disconnects, fails or takes longer than the tree timeout is
+ * dropped and its tree put back at the head of the queue for another worker.
+ * Loading the data set is bounded by DATA_TIMEOUT_MILLIS instead.
+ * A tree failing on MAX_ATTEMPTS workers fails its forest, as does having no
+ * workers for WORKER_WAIT_MILLIS. Workers may join at any time, eg. to replace
+ * failed ones. Counted in MetricsRegistry under distributed.*
+ */
+public class ForestCoordinator implements Closeable {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ForestCoordinator.class);
+
+	// Workers a tree is tried on before its forest fails
+	public static final int MAX_ATTEMPTS = 3;
+
+	// Longest time a forest waits with no worker connected
+	public static final long WORKER_WAIT_MILLIS = 30_000;
+
+	// Longest wait for a worker to return a tree, unless given
+	public static final long DEFAULT_TREE_TIMEOUT_MILLIS = 600_000;
+
+	// Longest wait for a worker to introduce itself or load data set. Separate
+	// from tree timeout, as parsing or receiving a large data set may take far
+	// longer than a tree, and a worker stuck here holds no tree
+	public static final long DATA_TIMEOUT_MILLIS = 1_800_000;
+
+	private static final LongAdder WORKERS_JOINED = MetricsRegistry.counter("distributed.worker.joined");
+	private static final LongAdder WORKERS_FAILED = MetricsRegistry.counter("distributed.worker.failed");
+	private static final LongAdder TREES = MetricsRegistry.counter("distributed.tree.count");
+	private static final LongAdder TREES_REASSIGNED = MetricsRegistry.counter("distributed.tree.reassigned");
+
+	private final ColumnarDataset data;
+
+	// Checksum of data set workers must report, see ForestWorker.checksum()
+	private final long dataChecksum;
+
+	// Path workers load data set from, null to always send it inline
+	private final String dataPath;
+
+	// Longest wait for a worker to return a tree, 0 for no limit
+	private final long treeTimeoutMillis;
+
+	private final ServerSocket server;
+
+	// Accept thread and one thread per worker connection
+	private final ExecutorService threads;
+
+	// Trees waiting for a worker
+	private final LinkedBlockingDeque<Task> queue = new LinkedBlockingDeque<>();
+
+	// Workers connected and sent data set
+	private final AtomicInteger workers = new AtomicInteger();
+
+	// Worker processes started by spawnLocalWorkers()
+	private final List<Process> processes = new ArrayList<>();
+
+	private volatile boolean closed;
+
+	// Trees of one forest on rows, in tree order. Failure set when forest failed
+	private static final class Forest {
+
+		private final int[] rows;
+		private final Node[] trees;
+		private final CountDownLatch remaining;
+		private volatile IOException failure;
+
+		private Forest(int[] rows, int size) {
+			this.rows = rows;
+			this.trees = new Node[size];
+			this.remaining = new CountDownLatch(size);
+		}
+
+		// First result of tree counts. A reassigned tree may be returned twice
+		private synchronized void complete(int index, Node tree) {
+			if (null == trees[index]) {
+				trees[index] = tree;
+				remaining.countDown();
+			}
+		}
+
+		private boolean isDone() {
+			return remaining.getCount() == 0 || null != failure;
+		}
+	}
+
+	// One tree of a forest. Bootstrap sample of forest rows drawn with seed when
+	// bootstrap is set
+	private static final class Task {
+
+		private final Forest forest;
+		private final int index;
+		private final boolean bootstrap;
+		private final long seed;
+		private final List<String> attributes;
+		private int attempts;
+
+		private Task(Forest forest, int index, boolean bootstrap, long seed, List<String> attributes) {
+			this.forest = forest;
+			this.index = index;
+			this.bootstrap = bootstrap;
+			this.seed = seed;
+			this.attributes = attributes;
+		}
+	}
+
+	private ForestCoordinator(ColumnarDataset data, String dataPath, long treeTimeoutMillis, ServerSocket server) {
+		this.data = data;
+		this.dataChecksum = ForestWorker.checksum(data);
+		this.dataPath = dataPath;
+		this.treeTimeoutMillis = treeTimeoutMillis;
+		this.server = server;
+		AtomicInteger threadCount = new AtomicInteger();
+		this.threads = Executors.newCachedThreadPool(runnable -> {
+			Thread thread = new Thread(runnable, "forest-coordinator-" + threadCount.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	// Start accepting workers on port (0 for any free port). Workers are told to
+	// load data set from dataPath, or sent it inline when dataPath is null or they
+	// cannot load it
+	public static ForestCoordinator start(ColumnarDataset data, String dataPath, int port, long treeTimeoutMillis)
+			throws IOException {
+		ServerSocket server = new ServerSocket();
+		server.bind(new InetSocketAddress(port));
+		ForestCoordinator coordinator = new ForestCoordinator(data, dataPath, treeTimeoutMillis, server);
+		coordinator.threads.execute(coordinator::acceptWorkers);
+		LOGGER.info("Forest coordinator accepting workers on port {}", coordinator.getPort());
+		return coordinator;
+	}
+
+	public int getPort() {
+		return server.getLocalPort();
+	}
+
+	// Workers currently connected and ready
+	public int workerCount() {
+		return workers.get();
+	}
+
+	// Start count worker processes on this host with same class path, each
+	// building with threads threads
+	public void spawnLocalWorkers(int count, int threads) throws IOException {
+		List<String> command = new ArrayList<>();
+		command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+		if (null != System.getProperty("log4j.configurationFile")) {
+			command.add("-Dlog4j.configurationFile=" + System.getProperty("log4j.configurationFile"));
+		}
+		command.addAll(Arrays.asList("-cp", System.getProperty("java.class.path"), ForestWorker.class.getName(),
+				"--coordinator=localhost:" + getPort(), "--threads=" + threads));
+		for (int i = 0; i < count; i++) {
+			synchronized (processes) {
+				processes.add(new ProcessBuilder(command).inheritIO().start());
+			}
+		}
+		LOGGER.info("Started {} local workers", count);
+	}
+
+	// Wait until at least count workers are ready
+	public void awaitWorkers(int count, long timeoutMillis) throws IOException {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+		while (workers.get() < count) {
+			if (System.nanoTime() - deadline > 0) {
+				throw new IOException("Only " + workers.get() + " of " + count + " workers ready after "
+						+ timeoutMillis + "ms");
+			}
+			sleep(50);
+		}
+	}
+
+	// Forest on rows as ForestUtils.generateForest(), trees built by workers
+	public List<Node> generateForest(int[] rows, List<String> attributes, int numEstimations, int attributeSize,
+			long seed) throws IOException {
+		Random seeds = new Random(seed);
+		Forest forest = new Forest(rows, numEstimations);
+		List<Task> tasks = new ArrayList<>();
+		for (int i = 0; i < numEstimations; i++) {
+			tasks.add(new Task(forest, i, false, 0L,
+					TreeGenerator.chooseAttributes(attributes, attributeSize, new Random(seeds.nextLong()))));
+		}
+		return Arrays.asList(run(forest, tasks));
+	}
+
+	// Bagged forest on rows as ForestUtils.generateBaggedForest(), trees built by
+	// workers. Workers draw bootstrap samples from their seeds, out of bag rows
+	// are drawn here
+	public BaggedForest generateBaggedForest(int[] rows, List<String> attributes, int numEstimations,
+			int attributeSize, long seed) throws IOException {
+		Random seeds = new Random(seed);
+		Forest forest = new Forest(rows, numEstimations);
+		List<Task> tasks = new ArrayList<>();
+		int[][] outOfBagRows = new int[numEstimations][];
+		for (int i = 0; i < numEstimations; i++) {
+			long sampleSeed = seeds.nextLong();
+			outOfBagRows[i] = Bootstrap.draw(rows, new Random(sampleSeed)).getOutOfBagRows();
+			tasks.add(new Task(forest, i, true, sampleSeed,
+					TreeGenerator.chooseAttributes(attributes, attributeSize, new Random(seeds.nextLong()))));
+		}
+		return new BaggedForest(Arrays.asList(run(forest, tasks)), outOfBagRows);
+	}
+
+	// Queue tasks of forest and wait for all its trees
+	private synchronized Node[] run(Forest forest, List<Task> tasks) throws IOException {
+		if (closed) {
+			throw new IOException("Coordinator closed");
+		}
+		long start = System.currentTimeMillis();
+		queue.addAll(tasks);
+		long noWorkersSince = -1;
+		try {
+			while (!forest.remaining.await(100, TimeUnit.MILLISECONDS) && null == forest.failure) {
+				if (workers.get() > 0) {
+					noWorkersSince = -1;
+				} else if (noWorkersSince < 0) {
+					noWorkersSince = System.currentTimeMillis();
+				} else if (System.currentTimeMillis() - noWorkersSince > WORKER_WAIT_MILLIS) {
+					forest.failure = new IOException("No workers connected for " + WORKER_WAIT_MILLIS + "ms");
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			forest.failure = new IOException("Interrupted waiting for trees");
+		}
+		if (null != forest.failure) {
+			queue.removeIf(task -> task.forest == forest);
+			throw forest.failure;
+		}
+		LOGGER.info("Forest of {} trees built by workers in {}ms", forest.trees.length,
+				System.currentTimeMillis() - start);
+		return forest.trees;
+	}
+
+	private void acceptWorkers() {
+		while (!closed) {
+			try {
+				Socket socket = server.accept();
+				threads.execute(() -> serve(socket));
+			} catch (IOException e) {
+				if (!closed) {
+					LOGGER.error("Accepting workers failed", e);
+				}
+				return;
+			}
+		}
+	}
+
+	// Send data set to worker on socket, then assign it trees until closed or
+	// worker fails
+	private void serve(Socket socket) {
+		String name = String.valueOf(socket.getRemoteSocketAddress());
+		boolean ready = false;
+		Task task = null;
+		try {
+			socket.setTcpNoDelay(true);
+			socket.setSoTimeout((int) DATA_TIMEOUT_MILLIS);
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			if (in.readInt() != ForestWorker.MAGIC || in.readInt() != ForestWorker.VERSION) {
+				throw new IOException("Not a forest worker of protocol version " + ForestWorker.VERSION);
+			}
+			name = in.readUTF() + " (" + name + ")";
+			sendData(in, out, name);
+			socket.setSoTimeout((int) Math.min(Integer.MAX_VALUE, treeTimeoutMillis));
+			ready = true;
+			workers.incrementAndGet();
+			WORKERS_JOINED.increment();
+			LOGGER.info("Worker {} ready", name);
+
+			Forest rowsSent = null;
+			while (!closed) {
+				task = queue.poll(100, TimeUnit.MILLISECONDS);
+				if (null == task || task.forest.isDone()) {
+					task = null;
+					continue;
+				}
+				if (rowsSent != task.forest) {
+					out.writeByte(ForestWorker.ROWS);
+					ForestWorker.writeInts(task.forest.rows, out);
+					rowsSent = task.forest;
+				}
+				out.writeByte(ForestWorker.TREE);
+				out.writeInt(task.index);
+				out.writeBoolean(task.bootstrap);
+				out.writeLong(task.seed);
+				ForestWorker.writeStrings(task.attributes, out);
+				out.flush();
+				byte reply = in.readByte();
+				if (reply == ForestWorker.RESULT) {
+					int index = in.readInt();
+					Node tree = NodeUtility.readTree(in, data);
+					if (index != task.index) {
+						throw new IOException("Got tree " + index + " for tree " + task.index);
+					}
+					task.forest.complete(index, tree);
+					TREES.increment();
+				} else if (reply == ForestWorker.FAILED) {
+					retry(task, name + ": " + in.readUTF());
+				} else {
+					throw new IOException("Unknown message type " + reply);
+				}
+				task = null;
+			}
+			out.writeByte(ForestWorker.BYE);
+			out.flush();
+		} catch (IOException e) {
+			if (!closed || null != task) {
+				LOGGER.warn("Worker {} failed: {}", name, e.toString());
+				WORKERS_FAILED.increment();
+			}
+			if (null != task) {
+				retry(task, name + ": " + e);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			if (null != task) {
+				queue.addFirst(task);
+			}
+		} finally {
+			if (ready) {
+				workers.decrementAndGet();
+			}
+			try {
+				socket.close();
+			} catch (IOException e) {
+				LOGGER.debug("Closing worker socket: {}", e.toString());
+			}
+		}
+	}
+
+	// Offer data set to worker as path, sent inline when worker cannot load path
+	// or loads different data
+	private void sendData(DataInputStream in, DataOutputStream out, String name) throws IOException {
+		if (null != dataPath) {
+			out.writeByte(ForestWorker.DATA_PATH);
+			out.writeUTF(dataPath);
+			ForestWorker.writeStrings(data.getAttributes(), out);
+			out.flush();
+			if (readyFor(in)) {
+				return;
+			}
+			LOGGER.info("Worker {} could not load {} or loaded different data, sending data set", name, dataPath);
+		}
+		out.writeByte(ForestWorker.DATA_INLINE);
+		ForestWorker.writeDataset(data, out);
+		out.flush();
+		if (!readyFor(in)) {
+			throw new IOException("Worker could not read data set");
+		}
+	}
+
+	// Reply to data set. True when worker loaded data set of same size and
+	// checksum
+	private boolean readyFor(DataInputStream in) throws IOException {
+		byte reply = in.readByte();
+		if (reply == ForestWorker.FAILED) {
+			LOGGER.debug("Worker: {}", in.readUTF());
+			return false;
+		}
+		if (reply != ForestWorker.READY) {
+			throw new IOException("Unknown message type " + reply);
+		}
+		int rows = in.readInt();
+		int classCount = in.readInt();
+		long checksum = in.readLong();
+		return rows == data.size() && classCount == data.classCount() && checksum == dataChecksum;
+	}
+
+	// Put tree back at head of queue for another worker, or fail its forest once
+	// tried MAX_ATTEMPTS times
+	private void retry(Task task, String reason) {
+		task.attempts++;
+		if (task.attempts >= MAX_ATTEMPTS) {
+			task.forest.failure = new IOException(
+					"Tree " + task.index + " failed on " + task.attempts + " workers, last " + reason);
+			return;
+		}
+		LOGGER.warn("Reassigning tree {} after {}", task.index, reason);
+		TREES_REASSIGNED.increment();
+		queue.addFirst(task);
+	}
+
+	// Stop accepting workers, say goodbye to connected ones and wait for local
+	// worker processes to exit
+	@Override
+	public void close() {
+		closed = true;
+		try {
+			server.close();
+		} catch (IOException e) {
+			LOGGER.debug("Closing coordinator socket: {}", e.toString());
+		}
+		threads.shutdown();
+		try {
+			threads.awaitTermination(5, TimeUnit.SECONDS);
+			synchronized (processes) {
+				for (Process process : processes) {
+					if (!process.waitFor(5, TimeUnit.SECONDS)) {
+						process.destroy();
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void sleep(long millis) throws IOException {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted waiting for workers");
+		}
+	}
+}
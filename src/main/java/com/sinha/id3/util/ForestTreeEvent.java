@@ -0,0 +1,29 @@
+package com.sinha.id3.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/*
+ * Flight Recorder event for build of one forest tree, from attribute sampling
+ * to completed tree
+ */
+@Name("com.sinha.id3.ForestTree")
+@Label("Forest Tree")
+@Category({ "ID3", "Forest Build" })
+@Description("Build of one tree of a forest")
+@StackTrace(false)
+public class ForestTreeEvent extends jdk.jfr.Event {
+
+	@Label("Rows")
+	int rows;
+
+	@Label("Attributes")
+	@Description("Attributes sampled for tree")
+	String attributes;
+
+	@Label("Split Nodes")
+	int splitNodes;
+}
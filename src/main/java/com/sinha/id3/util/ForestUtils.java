@@ -1,13 +1,18 @@
 package com.sinha.id3.util;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -66,7 +71,126 @@ public class ForestUtils {
 		CrossFoldValidation.printStatistics(cm, "Forest");
 
 		// Generate ROC curve
-		generateRoc(scores, truths);
+		generateRoc(scores, truths, "");
+	}
+
+	// Builds and evaluates forest on columnar data set. Folds are contiguous
+	// partitions of ceil(size/kFold) instances. Folds, their trees, subtrees and
+	// split searches all run as tasks in pool
+	public static void evaluateForest(ColumnarDataset data, List<String> attributes, int estimators,
+			int attributeSize, int kFold, ForkJoinPool pool) {
+		evaluateForest(data, attributes, estimators, attributeSize, kFold, ThreadLocalRandom.current().nextLong(),
+				pool);
+	}
+
+	// Builds and evaluates forest on columnar data set with attribute sampling
+	// seeded by seed. Each fold is trained and evaluated independently into its own
+	// FoldMetrics and fold results merged in fold order, so same seed gives same
+	// results however folds are scheduled
+	public static void evaluateForest(ColumnarDataset data, List<String> attributes, int estimators,
+			int attributeSize, int kFold, long seed, ForkJoinPool pool) {
+		int[][] partitions = Utility.partitionRows(data.size(), kFold);
+		Random seeds = new Random(seed);
+		List<Callable<FoldMetrics>> folds = new ArrayList<>();
+		for (int i = 0; i < partitions.length; i++) {
+			int fold = i;
+			long foldSeed = seeds.nextLong();
+			folds.add(() -> {
+				List<Node> forest = generateForest(data, Utility.trainingRows(partitions, fold), attributes,
+						estimators, attributeSize, foldSeed, pool);
+				FoldMetrics metrics = new FoldMetrics(data.classCount());
+				evaluateTestOnForest(forest, data, partitions[fold], metrics, pool);
+				return metrics;
+			});
+		}
+		FoldMetrics metrics = FoldMetrics.mergeAll(data.classCount(), BuildPool.invokeAll(pool, folds));
+		ConfusionMatrix cm = new ConfusionMatrix();
+		metrics.addTo(cm, data);
+		CrossFoldValidation.printStatistics(cm, "Forest");
+		generateRoc(metrics.getScores(), metrics.getTruths(), "");
+	}
+
+	// Build bagged forest on all rows of columnar data set and evaluate it on out
+	// of bag rows
+	public static BaggedForest evaluateForestOutOfBag(ColumnarDataset data, List<String> attributes,
+			int estimators, int attributeSize, ForkJoinPool pool) {
+		return evaluateForestOutOfBag(data, attributes, estimators, attributeSize,
+				ThreadLocalRandom.current().nextLong(), pool);
+	}
+
+	// Build bagged forest on all rows of columnar data set and evaluate it on out
+	// of bag rows, seeded by seed. One forest build instead of one per fold
+	public static BaggedForest evaluateForestOutOfBag(ColumnarDataset data, List<String> attributes,
+			int estimators, int attributeSize, long seed, ForkJoinPool pool) {
+		BaggedForest forest = generateBaggedForest(data, Utility.allRows(data.size()), attributes, estimators,
+				attributeSize, seed, pool);
+		evaluateOutOfBag(forest, data);
+		return forest;
+	}
+
+	// Build bagged forest on all rows of columnar data set with trees built by
+	// workers of coordinator, and evaluate it on out of bag rows
+	public static BaggedForest evaluateForestOutOfBag(ColumnarDataset data, List<String> attributes,
+			int estimators, int attributeSize, ForestCoordinator coordinator) {
+		BaggedForest forest = null;
+		try {
+			forest = coordinator.generateBaggedForest(Utility.allRows(data.size()), attributes, estimators,
+					attributeSize, ThreadLocalRandom.current().nextLong());
+		} catch (IOException e) {
+			LOGGER.error("Exception building forest on workers: ", e);
+			LOGGER.error("Exit");
+			System.exit(-1);
+		}
+		evaluateOutOfBag(forest, data);
+		return forest;
+	}
+
+	// Evaluate bagged forest on out of bag rows of columnar data set
+	private static void evaluateOutOfBag(BaggedForest forest, ColumnarDataset data) {
+		FoldMetrics metrics = forest.evaluateOutOfBag(data);
+		LOGGER.info("Out of bag rows evaluated: {} of {}", metrics.getScores().size(), data.size());
+		ConfusionMatrix cm = new ConfusionMatrix();
+		metrics.addTo(cm, data);
+		CrossFoldValidation.printStatistics(cm, "Forest out of bag");
+		generateRoc(metrics.getScores(), metrics.getTruths(), "_oob");
+	}
+
+	// Generate forest on specified rows of columnar data set, each tree on its own
+	// bootstrap sample of the rows. Samples drawn up front from seed, so same seed
+	// gives same forest however trees are scheduled
+	public static BaggedForest generateBaggedForest(ColumnarDataset data, int[] rows, List<String> attributes,
+			int numEstimations, int attributeSize, long seed, ForkJoinPool pool) {
+		Random seeds = new Random(seed);
+		List<Callable<Node>> callables = new ArrayList<>();
+		int[][] outOfBagRows = new int[numEstimations][];
+		for (int i = 0; i < numEstimations; i++) {
+			Bootstrap sample = Bootstrap.draw(rows, new Random(seeds.nextLong()));
+			outOfBagRows[i] = sample.getOutOfBagRows();
+			callables.add(new TreeGenerator(new ArrayList<>(attributes), data, sample.getSampleRows(), attributeSize,
+					seeds.nextLong(), pool));
+		}
+		return new BaggedForest(BuildPool.invokeAll(pool, callables), outOfBagRows);
+	}
+
+	// Generate Forest on specified rows of columnar data set. Each tree is a
+	// fork/join task
+	public static List<Node> generateForest(ColumnarDataset data, int[] rows, List<String> attributes,
+			int numEstimations, int attributeSize, ForkJoinPool pool) {
+		return generateForest(data, rows, attributes, numEstimations, attributeSize,
+				ThreadLocalRandom.current().nextLong(), pool);
+	}
+
+	// Generate Forest on specified rows of columnar data set. Attribute sampling of
+	// each tree seeded from seed
+	public static List<Node> generateForest(ColumnarDataset data, int[] rows, List<String> attributes,
+			int numEstimations, int attributeSize, long seed, ForkJoinPool pool) {
+		Random seeds = new Random(seed);
+		List<Callable<Node>> callables = new ArrayList<>();
+		for (int i = 0; i < numEstimations; i++) {
+			callables.add(new TreeGenerator(new ArrayList<>(attributes), data, rows, attributeSize, seeds.nextLong(),
+					pool));
+		}
+		return BuildPool.invokeAll(pool, callables);
 	}
 
 	// Generate Forest
@@ -78,14 +202,23 @@ public class ForestUtils {
 		return forestNodes;
 	}
 
-	// Generate ROC curve using scores and truth values
-	private static void generateRoc(List<Double> scores, List<Boolean> truths) {
+	// Generate ROC curve using scores and truth values. Suffix appended to names
+	// of files written
+	private static void generateRoc(List<Double> scores, List<Boolean> truths, String suffix) {
 		double[] scoreArr = getScoreArr(scores);
 		boolean[] truthArr = getTruthArr(truths);
 		Roc roc = new Roc(scoreArr, truthArr);
 		LOGGER.info("ROC AUC: {}", roc.computeAUC());
-		List<RocCoordinates> roc_coordinates = roc.computeRocPointsAndGenerateCurve("./Roc_curve.png");
-		Utils.storeRocCoordinatesInCSVFile(roc_coordinates, "./roc.csv");
+
+		// Curve image and coordinates written on render queue. Only files, so nothing
+		// to do in headless mode unless requested
+		if (RenderQueue.isRequested(RenderQueue.Artifact.ROC)) {
+			RenderQueue.submit("forest ROC" + suffix, () -> {
+				List<RocCoordinates> roc_coordinates = roc
+						.computeRocPointsAndGenerateCurve("./Roc_curve" + suffix + ".png");
+				Utils.storeRocCoordinatesInCSVFile(roc_coordinates, "./roc" + suffix + ".csv");
+			});
+		}
 	}
 
 	// Prepare score array from list of scores
@@ -127,6 +260,70 @@ public class ForestUtils {
 		}
 	}
 
+	// Perform evaluation on generated forest using test rows of columnar data set.
+	// Trees compiled to flat arrays and test rows scored as one batch, tree major.
+	// Predictions and scores added to metrics of fold
+	private static void evaluateTestOnForest(List<Node> forest, ColumnarDataset data, int[] testRows,
+			FoldMetrics metrics, ExecutorService executor) {
+		CompiledForest model = CompiledForest.compile(forest, data);
+		LOGGER.debug("Forest model: {} trees, {} nodes, {} bytes", model.size(), model.nodeCount(),
+				model.memoryBytes());
+		int classCount = data.classCount();
+		int[] voteCounts = new int[testRows.length * classCount];
+		int[] predictions = model.predict(data, testRows, voteCounts, executor);
+		for (int i = 0; i < testRows.length; i++) {
+			int predClass = predictions[i];
+			int actualClass = data.classCode(testRows[i]);
+			metrics.add(actualClass, predClass);
+
+			// Score is fraction of votes for actual class
+			int total = 0;
+			for (int code = 0; code < classCount; code++) {
+				total += voteCounts[i * classCount + code];
+			}
+			metrics.addScore(total == 0 ? 0d : (double) voteCounts[i * classCount + actualClass] / (double) total,
+					predClass == actualClass);
+		}
+	}
+
+	// Compile each tree of forest to flat arrays. Trees share one attribute name
+	// array and one class label array
+	public static CompiledTree[] compileForest(List<Node> forest, ColumnarDataset data) {
+		String[] attributeNames = data.getAttributes().toArray(new String[0]);
+		String[] classLabels = CompiledTree.classLabels(data);
+		CompiledTree[] trees = new CompiledTree[forest.size()];
+		for (int i = 0; i < trees.length; i++) {
+			trees[i] = CompiledTree.compile(forest.get(i), attributeNames, classLabels);
+		}
+		return trees;
+	}
+
+	// Tally votes of compiled trees for row into votes array (cleared first).
+	// Returns class code with most votes, CompiledTree.UNKNOWN_CLASS if no tree
+	// could classify row
+	public static int vote(CompiledTree[] trees, ColumnarDataset data, int row, int[] votes) {
+		Arrays.fill(votes, 0);
+		for (CompiledTree tree : trees) {
+			int classCode = tree.predict(data, row);
+			if (classCode != CompiledTree.UNKNOWN_CLASS) {
+				votes[classCode]++;
+			}
+		}
+		return Utility.majorityClass(votes);
+	}
+
+	// Tally votes of compiled trees for feature vector into votes array
+	public static int vote(CompiledTree[] trees, double[] features, int[] votes) {
+		Arrays.fill(votes, 0);
+		for (CompiledTree tree : trees) {
+			int classCode = tree.predict(features);
+			if (classCode != CompiledTree.UNKNOWN_CLASS) {
+				votes[classCode]++;
+			}
+		}
+		return Utility.majorityClass(votes);
+	}
+
 	// Store scores for evaluation
 	private static void populateScoresAndTruths(List<Double> scores, List<Boolean> truths, InputSet input,
 			Map<String, Integer> decisionMap, String predClass) {
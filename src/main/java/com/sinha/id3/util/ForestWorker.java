@@ -0,0 +1,344 @@
+package com.sinha.id3.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/*
+ * Worker process of distributed forest training. Connects to a
+ * ForestCoordinator, loads the data set it is sent and builds the trees it is
+ * assigned, one at a time with all threads of its pool, sending each back
+ * until the coordinator says goodbye or goes away.
+ *
+ * Protocol, over one TCP connection per worker (DataInput / DataOutput, big
+ * endian), messages start with their type byte:
+ *
+ * worker: magic, version, worker name
+ *
+ * coordinator: DATA_PATH path, attribute names. Worker loads binary cache of
+ * path (see DatasetCache), else parses path
+ *
+ * coordinator: DATA_INLINE attribute names, class codes, class values,
+ * columns. Sent when worker could not load path, or loaded different data
+ *
+ * worker: READY rows, class count, checksum (see checksum()) | FAILED message.
+ * Coordinator sends DATA_INLINE when any differs from its data set
+ *
+ * coordinator: ROWS rows. Training rows of a forest, before its first tree
+ *
+ * coordinator: TREE tree index, bootstrap flag, bootstrap seed, attribute
+ * names. Tree on training rows, or on their bootstrap sample drawn with seed,
+ * with attributes in given order
+ *
+ * worker: RESULT tree index, tree (see NodeUtility.writeTree) | FAILED message
+ *
+ * coordinator: BYE
+ *
+ * Array and list lengths are checked before allocating: against rows and
+ * attributes of the data set once it is known, else against MAX_ATTRIBUTES
+ * and the largest array length. Class values are sent after class codes so
+ * their count is bounded by rows.
+ */
+public class ForestWorker {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ForestWorker.class);
+
+	// "ID3W"
+	static final int MAGIC = 0x49443357;
+
+	static final int VERSION = 3;
+
+	// Most attribute names accepted before data set is known
+	static final int MAX_ATTRIBUTES = 1 << 20;
+
+	// Largest array length VMs allocate
+	private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+	// Message types
+	static final byte DATA_PATH = 1;
+	static final byte DATA_INLINE = 2;
+	static final byte ROWS = 3;
+	static final byte TREE = 4;
+	static final byte BYE = 5;
+	static final byte READY = 10;
+	static final byte RESULT = 11;
+	static final byte FAILED = 12;
+
+	private final ForkJoinPool pool;
+
+	public ForestWorker(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	// Serve coordinator at host:port until it says goodbye
+	public void serve(String host, int port) throws IOException {
+		try (Socket socket = new Socket(host, port)) {
+			socket.setTcpNoDelay(true);
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeUTF(ManagementFactory.getRuntimeMXBean().getName());
+			out.flush();
+			LOGGER.info("Connected to coordinator {}:{}", host, port);
+
+			ColumnarDataset data = null;
+			int[] rows = null;
+			while (true) {
+				byte type = in.readByte();
+				switch (type) {
+				case DATA_PATH:
+					String path = in.readUTF();
+					data = load(path, readStrings(in, MAX_ATTRIBUTES));
+					if (null == data) {
+						out.writeByte(FAILED);
+						out.writeUTF("Cannot read " + path);
+					} else {
+						ready(data, out);
+					}
+					out.flush();
+					break;
+				case DATA_INLINE:
+					data = readDataset(in);
+					ready(data, out);
+					out.flush();
+					break;
+				case ROWS:
+					rows = readInts(in, null == data ? 0 : data.size());
+					break;
+				case TREE:
+					buildTree(in, out, data, rows);
+					out.flush();
+					break;
+				case BYE:
+					LOGGER.info("Coordinator done");
+					return;
+				default:
+					throw new IOException("Unknown message type " + type);
+				}
+			}
+		}
+	}
+
+	// Read TREE message and reply with built tree, or failure
+	private void buildTree(DataInput in, DataOutput out, ColumnarDataset data, int[] rows) throws IOException {
+		int index = in.readInt();
+		boolean bootstrap = in.readBoolean();
+		long seed = in.readLong();
+		List<String> attributes = readStrings(in, null == data ? MAX_ATTRIBUTES : data.attributeCount());
+		if (null == data || null == rows) {
+			out.writeByte(FAILED);
+			out.writeUTF("Tree " + index + " assigned before data set and rows");
+			return;
+		}
+		Node tree;
+		try {
+			int[] treeRows = bootstrap ? Bootstrap.draw(rows, new Random(seed)).getSampleRows() : rows;
+			tree = new TreeGenerator(data, treeRows, attributes, pool).call();
+		} catch (Exception e) {
+			LOGGER.error("Tree {} failed", index, e);
+			out.writeByte(FAILED);
+			out.writeUTF("Tree " + index + ": " + e);
+			return;
+		}
+		LOGGER.debug("Tree {} built on {}", index, attributes);
+		out.writeByte(RESULT);
+		out.writeInt(index);
+		NodeUtility.writeTree(tree, out);
+	}
+
+	// Data set at path from its binary cache, else parsed. null when neither can
+	// be read
+	private static ColumnarDataset load(String path, List<String> attributes) {
+		ColumnarDataset data = DatasetCache.load(path, attributes);
+		if (null != data) {
+			LOGGER.info("Loaded {} from cache {}", path, DatasetCache.cacheFile(path));
+			return data;
+		}
+		if (!new File(path).canRead()) {
+			LOGGER.info("Cannot read {}, waiting for data set", path);
+			return null;
+		}
+		try {
+			return CsvColumnParser.parse(path, attributes);
+		} catch (Exception e) {
+			LOGGER.warn("Cannot parse {}: {}", path, e.toString());
+			return null;
+		}
+	}
+
+	private static void ready(ColumnarDataset data, DataOutput out) throws IOException {
+		LOGGER.info("Data set ready: {} rows, {} classes", data.size(), data.classCount());
+		out.writeByte(READY);
+		out.writeInt(data.size());
+		out.writeInt(data.classCount());
+		out.writeLong(checksum(data));
+	}
+
+	// CRC32 of class values, class codes and columns of data set, in that order
+	// and big endian, so workers loading another file of the same shape are told
+	// apart
+	static long checksum(ColumnarDataset data) {
+		CRC32 crc = new CRC32();
+		ByteBuffer buffer = ByteBuffer.allocate(8192);
+		for (double value : data.getClassValues()) {
+			update(crc, buffer.putDouble(value));
+		}
+		for (int code : data.getClassCodes()) {
+			update(crc, buffer.putInt(code));
+		}
+		for (int i = 0; i < data.attributeCount(); i++) {
+			for (double value : data.getColumn(i)) {
+				update(crc, buffer.putDouble(value));
+			}
+		}
+		buffer.flip();
+		crc.update(buffer);
+		return crc.getValue();
+	}
+
+	// Checksum buffer once it has no room for another value
+	private static void update(CRC32 crc, ByteBuffer buffer) {
+		if (buffer.remaining() < Double.BYTES) {
+			buffer.flip();
+			crc.update(buffer);
+			buffer.clear();
+		}
+	}
+
+	// Write attribute names, class codes, class values and columns of data set
+	static void writeDataset(ColumnarDataset data, DataOutput out) throws IOException {
+		writeStrings(data.getAttributes(), out);
+		writeInts(data.getClassCodes(), out);
+		writeDoubles(data.getClassValues(), out);
+		for (int i = 0; i < data.attributeCount(); i++) {
+			writeDoubles(data.getColumn(i), out);
+		}
+	}
+
+	static ColumnarDataset readDataset(DataInput in) throws IOException {
+		List<String> attributes = readStrings(in, MAX_ATTRIBUTES);
+		int[] classCodes = readInts(in, MAX_ARRAY_LENGTH);
+		double[] classValues = readDoubles(in, classCodes.length);
+		double[][] columns = new double[attributes.size()][];
+		for (int i = 0; i < columns.length; i++) {
+			columns[i] = readDoubles(in, classCodes.length);
+			if (columns[i].length != classCodes.length) {
+				throw new IOException("Column " + attributes.get(i) + " has " + columns[i].length + " values for "
+						+ classCodes.length + " rows");
+			}
+		}
+		return new ColumnarDataset(attributes, columns, classCodes, classValues);
+	}
+
+	static void writeStrings(List<String> values, DataOutput out) throws IOException {
+		out.writeInt(values.size());
+		for (String value : values) {
+			out.writeUTF(value);
+		}
+	}
+
+	// Strings written by writeStrings(), at most maxSize of them
+	static List<String> readStrings(DataInput in, int maxSize) throws IOException {
+		int size = readSize(in, maxSize);
+		List<String> values = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			values.add(in.readUTF());
+		}
+		return values;
+	}
+
+	static void writeInts(int[] values, DataOutput out) throws IOException {
+		out.writeInt(values.length);
+		for (int value : values) {
+			out.writeInt(value);
+		}
+	}
+
+	static int[] readInts(DataInput in, int maxSize) throws IOException {
+		int[] values = new int[readSize(in, maxSize)];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = in.readInt();
+		}
+		return values;
+	}
+
+	static void writeDoubles(double[] values, DataOutput out) throws IOException {
+		out.writeInt(values.length);
+		for (double value : values) {
+			out.writeDouble(value);
+		}
+	}
+
+	static double[] readDoubles(DataInput in, int maxSize) throws IOException {
+		double[] values = new double[readSize(in, maxSize)];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = in.readDouble();
+		}
+		return values;
+	}
+
+	// Length prefix of a list or array, rejected when negative or above maxSize
+	// so a corrupt or hostile peer cannot make us allocate arbitrary memory
+	private static int readSize(DataInput in, int maxSize) throws IOException {
+		int size = in.readInt();
+		if (size < 0 || size > maxSize) {
+			throw new IOException("Length " + size + " out of range 0.." + maxSize);
+		}
+		return size;
+	}
+
+	// Required Arguments -
+	// index - 0 -> --coordinator=host:port of ForestCoordinator
+	// Optional Arguments, after required one -
+	// --threads=N -> tree build threads. Default available processors
+	public static void main(String[] args) {
+		if (args.length < 1 || !args[0].startsWith("--coordinator=") || args[0].indexOf(':') < 0) {
+			LOGGER.error("Usage: ForestWorker --coordinator=host:port [--threads=]");
+			System.exit(-1);
+		}
+		String address = args[0].substring("--coordinator=".length());
+		String host = address.substring(0, address.lastIndexOf(':'));
+		int port = 0;
+		int threads = Runtime.getRuntime().availableProcessors();
+		try {
+			port = Integer.parseInt(address.substring(address.lastIndexOf(':') + 1));
+			for (int i = 1; i < args.length; i++) {
+				if (args[i].startsWith("--threads=")) {
+					threads = Integer.parseInt(args[i].substring("--threads=".length()));
+				} else {
+					LOGGER.error("Unknown argument: {}", args[i]);
+					System.exit(-1);
+				}
+			}
+		} catch (NumberFormatException e) {
+			LOGGER.error("Invalid number in arguments", e);
+			System.exit(-1);
+		}
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			new ForestWorker(pool).serve(host, port);
+		} catch (IOException e) {
+			LOGGER.error("Lost coordinator {}", address, e);
+			System.exit(-1);
+		} finally {
+			pool.shutdown();
+		}
+	}
+}
@@ -0,0 +1,586 @@
+package com.sinha.id3.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/*
+ * Incremental decision tree (Hoeffding tree / VFDT) learnt from a stream of
+ * rows, one row at a time, without keeping rows. Splits are binary on numeric
+ * thresholds (value <= threshold goes left) like trees of TreeUtility.
+ *
+ * Each leaf keeps, per class and attribute, count, mean, variance, minimum
+ * and maximum of values seen. Every gracePeriod rows a leaf evaluates
+ * splitCandidates evenly spaced thresholds per attribute (mid point included
+ * when odd), estimating class counts on each side from a normal distribution
+ * per class. Leaf is split when information gain of best attribute exceeds
+ * that of second best by more than the Hoeffding bound
+ * sqrt(R^2 ln(1/delta) / 2n), or the bound falls below tieThreshold. Memory
+ * per leaf is fixed by attribute and class count. Once maxLeaves is reached
+ * leaves drop their statistics and only keep class counts.
+ *
+ * Thread safe: predictions (read lock) may run at any moment while rows are
+ * learnt (write lock)
+ */
+public class HoeffdingTree {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(HoeffdingTree.class);
+
+	public static final double DEFAULT_DELTA = 1e-7;
+	public static final double DEFAULT_TIE_THRESHOLD = 0.05;
+	public static final int DEFAULT_GRACE_PERIOD = 200;
+	public static final int DEFAULT_SPLIT_CANDIDATES = 9;
+	public static final int DEFAULT_MAX_LEAVES = 10000;
+
+	// Split node (attribute >= 0) or leaf
+	private static final class TreeNode {
+		private int attribute = -1;
+		private double threshold;
+		private TreeNode left;
+		private TreeNode right;
+
+		// Leaf only. Observed or, right after split, estimated class weights
+		private double[] classCounts;
+
+		// Leaf only. null once leaf no longer collects statistics
+		private LeafStats stats;
+
+		private TreeNode(double[] classCounts, LeafStats stats) {
+			this.classCounts = classCounts;
+			this.stats = stats;
+		}
+
+		private boolean isLeaf() {
+			return attribute < 0;
+		}
+	}
+
+	// Per class, per attribute running statistics of a leaf. Arrays indexed
+	// [classCode][attribute], class rows added as classes appear
+	private static final class LeafStats {
+		private double[][] count;
+		private double[][] mean;
+		private double[][] m2;
+		private double[][] min;
+		private double[][] max;
+
+		// Rows seen by leaf, and at last split evaluation
+		private long seen;
+		private long seenAtLastCheck;
+
+		private LeafStats(int classCount, int attributeCount) {
+			count = new double[0][];
+			mean = new double[0][];
+			m2 = new double[0][];
+			min = new double[0][];
+			max = new double[0][];
+			ensureClasses(classCount, attributeCount);
+		}
+
+		private void ensureClasses(int classCount, int attributeCount) {
+			int previous = count.length;
+			if (classCount <= previous) {
+				return;
+			}
+			count = Arrays.copyOf(count, classCount);
+			mean = Arrays.copyOf(mean, classCount);
+			m2 = Arrays.copyOf(m2, classCount);
+			min = Arrays.copyOf(min, classCount);
+			max = Arrays.copyOf(max, classCount);
+			for (int code = previous; code < classCount; code++) {
+				count[code] = new double[attributeCount];
+				mean[code] = new double[attributeCount];
+				m2[code] = new double[attributeCount];
+				min[code] = new double[attributeCount];
+				max[code] = new double[attributeCount];
+				Arrays.fill(min[code], Double.POSITIVE_INFINITY);
+				Arrays.fill(max[code], Double.NEGATIVE_INFINITY);
+			}
+		}
+
+		// Welford update of value of attribute for class
+		private void add(int classCode, int attribute, double value) {
+			double n = ++count[classCode][attribute];
+			double delta = value - mean[classCode][attribute];
+			mean[classCode][attribute] += delta / n;
+			m2[classCode][attribute] += delta * (value - mean[classCode][attribute]);
+			min[classCode][attribute] = Math.min(min[classCode][attribute], value);
+			max[classCode][attribute] = Math.max(max[classCode][attribute], value);
+		}
+
+		// Estimated weight of class with values of attribute <= threshold
+		private double leftWeight(int classCode, int attribute, double threshold) {
+			double n = count[classCode][attribute];
+			if (n == 0 || threshold < min[classCode][attribute]) {
+				return 0;
+			}
+			if (threshold >= max[classCode][attribute]) {
+				return n;
+			}
+			double sd = n > 1 ? Math.sqrt(m2[classCode][attribute] / (n - 1)) : 0;
+			if (sd == 0) {
+				return threshold >= mean[classCode][attribute] ? n : 0;
+			}
+			return n * normalCdf((threshold - mean[classCode][attribute]) / sd);
+		}
+
+		private long memoryBytes() {
+			long size = MemorySize.ofObject(5, 16);
+			for (double[][] array : new double[][][] { count, mean, m2, min, max }) {
+				size += MemorySize.ofArray(array.length, 4);
+				for (double[] row : array) {
+					size += MemorySize.ofArray(row.length, 8);
+				}
+			}
+			return size;
+		}
+	}
+
+	private final List<String> attributes;
+
+	// Class label -> class code, codes assigned in order of first appearance
+	private final Map<String, Integer> classCodes = new HashMap<>();
+	private final List<String> classLabels = new ArrayList<>();
+
+	private final double delta;
+	private final double tieThreshold;
+	private final int gracePeriod;
+	private final int splitCandidates;
+	private final int maxLeaves;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private TreeNode root;
+	private int leafCount = 1;
+	private int splitCount;
+	private long rowCount;
+
+	public HoeffdingTree(List<String> attributes) {
+		this(attributes, DEFAULT_DELTA, DEFAULT_TIE_THRESHOLD, DEFAULT_GRACE_PERIOD, DEFAULT_SPLIT_CANDIDATES,
+				DEFAULT_MAX_LEAVES);
+	}
+
+	// delta: allowed probability of choosing a worse split than on infinite data.
+	// tieThreshold: bound below which best split is taken even if close to second.
+	// gracePeriod: rows a leaf sees between split evaluations
+	public HoeffdingTree(List<String> attributes, double delta, double tieThreshold, int gracePeriod,
+			int splitCandidates, int maxLeaves) {
+		if (delta <= 0 || delta >= 1 || tieThreshold < 0 || gracePeriod < 1 || splitCandidates < 1
+				|| maxLeaves < 1) {
+			throw new IllegalArgumentException("Invalid Hoeffding tree parameters");
+		}
+		this.attributes = Collections.unmodifiableList(new ArrayList<>(attributes));
+		this.delta = delta;
+		this.tieThreshold = tieThreshold;
+		this.gracePeriod = gracePeriod;
+		this.splitCandidates = splitCandidates;
+		this.maxLeaves = maxLeaves;
+		this.root = new TreeNode(new double[0], new LeafStats(0, attributes.size()));
+	}
+
+	// Learn one row. features laid out as attributes. Returns class code
+	// predicted for row before learning it (test then train), UNKNOWN_CLASS if
+	// none. Row is skipped when a split on the way tests a NaN value
+	public int learn(double[] features, String classLabel) {
+		return learnCode(features, classCodeOf(classLabel));
+	}
+
+	// Learn one row of class code of this tree, see learn(double[], String)
+	private int learnCode(double[] features, int classCode) {
+		if (features.length != attributes.size()) {
+			throw new IllegalArgumentException(
+					"Expected " + attributes.size() + " feature values, got " + features.length);
+		}
+		lock.writeLock().lock();
+		try {
+			TreeNode leaf = leafOf(features);
+			int predicted = leaf == null ? CompiledTree.UNKNOWN_CLASS : majorityClass(leaf.classCounts);
+			if (leaf == null) {
+				return predicted;
+			}
+			rowCount++;
+			if (leaf.classCounts.length <= classCode) {
+				leaf.classCounts = Arrays.copyOf(leaf.classCounts, classLabels.size());
+			}
+			leaf.classCounts[classCode]++;
+			LeafStats stats = leaf.stats;
+			if (null != stats) {
+				stats.ensureClasses(classLabels.size(), attributes.size());
+				for (int attr = 0; attr < features.length; attr++) {
+					if (!Double.isNaN(features[attr])) {
+						stats.add(classCode, attr, features[attr]);
+					}
+				}
+				stats.seen++;
+				if (stats.seen - stats.seenAtLastCheck >= gracePeriod) {
+					stats.seenAtLastCheck = stats.seen;
+					attemptSplit(leaf);
+				}
+			}
+			return predicted;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	// Learn all rows of data set in order. Data set attributes matched to tree
+	// attributes by name, class codes of data set mapped to codes of this tree
+	// once. Returns number of rows predicted correctly before being learnt
+	public long learn(ColumnarDataset data) {
+		int[] columns = data.indicesOf(attributes);
+		int[] treeCodes = new int[data.classCount()];
+		for (int code = 0; code < treeCodes.length; code++) {
+			treeCodes[code] = classCodeOf(data.classLabel(code));
+		}
+		double[] features = new double[columns.length];
+		long correct = 0;
+		for (int row = 0; row < data.size(); row++) {
+			for (int attr = 0; attr < columns.length; attr++) {
+				features[attr] = data.value(columns[attr], row);
+			}
+			int classCode = treeCodes[data.classCode(row)];
+			correct += learnCode(features, classCode) == classCode ? 1 : 0;
+		}
+		return correct;
+	}
+
+	// Stream rows of data set file (format of ReadInput.readFile()) through tree
+	// line by line, so file may be larger than memory. Class values seen in file
+	// mapped to codes of this tree once each. Returns number of rows predicted
+	// correctly before being learnt
+	public long learnFile(String path) throws IOException {
+		long correct = 0;
+		long lineNumber = 0;
+		double[] features = new double[attributes.size()];
+		double[] fileClassValues = new double[0];
+		int[] fileClassCodes = new int[0];
+		try (BufferedReader reader = Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8)) {
+			String line;
+			while (null != (line = reader.readLine())) {
+				lineNumber++;
+				if (line.trim().isEmpty()) {
+					continue;
+				}
+				String[] values = line.split(",");
+				if (values.length <= attributes.size()) {
+					throw new IOException("Line " + lineNumber + ": expected " + (attributes.size() + 1) + " values");
+				}
+				try {
+					double classValue = Double.parseDouble(values[0].trim());
+					for (int attr = 0; attr < features.length; attr++) {
+						features[attr] = Double.parseDouble(values[attr + 1].trim());
+					}
+
+					// Few classes, so linear search of values seen so far
+					int seen = 0;
+					while (seen < fileClassValues.length && fileClassValues[seen] != classValue) {
+						seen++;
+					}
+					if (seen == fileClassValues.length) {
+						fileClassValues = Arrays.copyOf(fileClassValues, seen + 1);
+						fileClassCodes = Arrays.copyOf(fileClassCodes, seen + 1);
+						fileClassValues[seen] = classValue;
+						fileClassCodes[seen] = classCodeOf(ClassDictionary.label(classValue));
+					}
+					int classCode = fileClassCodes[seen];
+					correct += learnCode(features, classCode) == classCode ? 1 : 0;
+				} catch (NumberFormatException e) {
+					throw new IOException("Line " + lineNumber + ": " + e.getMessage());
+				}
+			}
+		}
+		return correct;
+	}
+
+	// Returns class code predicted for feature vector laid out as attributes.
+	// UNKNOWN_CLASS for NaN on path or leaf without rows
+	public int predict(double[] features) {
+		lock.readLock().lock();
+		try {
+			TreeNode leaf = leafOf(features);
+			return null == leaf ? CompiledTree.UNKNOWN_CLASS : majorityClass(leaf.classCounts);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	// Leaf reached by feature vector, null when NaN value is tested on the way
+	private TreeNode leafOf(double[] features) {
+		TreeNode node = root;
+		while (!node.isLeaf()) {
+			double value = features[node.attribute];
+			if (value <= node.threshold) {
+				node = node.left;
+			} else if (value > node.threshold) {
+				node = node.right;
+			} else {
+				return null;
+			}
+		}
+		return node;
+	}
+
+	// Class code of this tree for class label, assigned on first appearance
+	private int classCodeOf(String classLabel) {
+		lock.writeLock().lock();
+		try {
+			Integer code = classCodes.get(classLabel);
+			if (null == code) {
+				code = classLabels.size();
+				classCodes.put(classLabel, code);
+				classLabels.add(classLabel);
+			}
+			return code;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	// Split leaf if Hoeffding bound shows best split better than second best
+	private void attemptSplit(TreeNode leaf) {
+		if (leafCount >= maxLeaves) {
+			leaf.stats = null;
+			return;
+		}
+		int presentClasses = 0;
+		for (double count : leaf.classCounts) {
+			presentClasses += count > 0 ? 1 : 0;
+		}
+		if (presentClasses < 2) {
+			return;
+		}
+		LeafStats stats = leaf.stats;
+		int bestAttribute = -1;
+		double bestThreshold = 0;
+		double bestGain = 0;
+		double secondGain = 0;
+		for (int attr = 0; attr < attributes.size(); attr++) {
+			double[] attributeBest = bestSplit(stats, attr);
+			if (null == attributeBest) {
+				continue;
+			}
+			if (bestAttribute == -1 || attributeBest[1] >= bestGain) {
+				secondGain = bestAttribute == -1 ? 0 : bestGain;
+				bestAttribute = attr;
+				bestThreshold = attributeBest[0];
+				bestGain = attributeBest[1];
+			} else if (attributeBest[1] > secondGain) {
+				secondGain = attributeBest[1];
+			}
+		}
+		if (bestAttribute == -1 || bestGain <= 0) {
+			return;
+		}
+		double range = Math.log(Math.max(2, classLabels.size())) / Math.log(2);
+		double bound = Math.sqrt(range * range * Math.log(1 / delta) / (2d * stats.seen));
+		if (bestGain - secondGain <= bound && bound >= tieThreshold) {
+			return;
+		}
+
+		int classCount = classLabels.size();
+		double[] leftCounts = new double[classCount];
+		double[] rightCounts = new double[classCount];
+		for (int code = 0; code < classCount; code++) {
+			double left = stats.leftWeight(code, bestAttribute, bestThreshold);
+			leftCounts[code] = left;
+			rightCounts[code] = stats.count[code][bestAttribute] - left;
+		}
+		leaf.attribute = bestAttribute;
+		leaf.threshold = bestThreshold;
+		leaf.left = new TreeNode(leftCounts, new LeafStats(classCount, attributes.size()));
+		leaf.right = new TreeNode(rightCounts, new LeafStats(classCount, attributes.size()));
+		leaf.classCounts = null;
+		leaf.stats = null;
+		leafCount++;
+		splitCount++;
+		LOGGER.debug("Split leaf after {} rows on {} <= {}, gain {} second {} bound {}", stats.seen,
+				attributes.get(bestAttribute), bestThreshold, bestGain, secondGain, bound);
+	}
+
+	// Best of evenly spaced thresholds between minimum and maximum value of
+	// attribute. Returns {threshold, gain}, null if attribute has single value
+	private double[] bestSplit(LeafStats stats, int attribute) {
+		int classCount = stats.count.length;
+		double min = Double.POSITIVE_INFINITY;
+		double max = Double.NEGATIVE_INFINITY;
+		double[] classWeights = new double[classCount];
+		for (int code = 0; code < classCount; code++) {
+			min = Math.min(min, stats.min[code][attribute]);
+			max = Math.max(max, stats.max[code][attribute]);
+			classWeights[code] = stats.count[code][attribute];
+		}
+		if (!(min < max)) {
+			return null;
+		}
+		double entropyBeforeSplit = EntropyUtil.calculateEntropy(classWeights);
+		double[] leftWeights = new double[classCount];
+		double[] rightWeights = new double[classCount];
+		double[] best = null;
+		for (int i = 1; i <= splitCandidates; i++) {
+			double threshold = min + (max - min) * i / (splitCandidates + 1);
+			double leftCount = 0;
+			double rightCount = 0;
+			for (int code = 0; code < classCount; code++) {
+				leftWeights[code] = stats.leftWeight(code, attribute, threshold);
+				rightWeights[code] = classWeights[code] - leftWeights[code];
+				leftCount += leftWeights[code];
+				rightCount += rightWeights[code];
+			}
+			if (leftCount <= 0 || rightCount <= 0) {
+				continue;
+			}
+			double gain = EntropyUtil.calculateInfoGain(entropyBeforeSplit, EntropyUtil.calculateEntropy(leftWeights),
+					EntropyUtil.calculateEntropy(rightWeights), leftCount, rightCount);
+			if (null == best || gain > best[1]) {
+				best = new double[] { threshold, gain };
+			}
+		}
+		return best;
+	}
+
+	// Class with highest weight, ties to higher class code. UNKNOWN_CLASS if all
+	// weights 0
+	private static int majorityClass(double[] classCounts) {
+		int majority = CompiledTree.UNKNOWN_CLASS;
+		for (int code = 0; code < classCounts.length; code++) {
+			if (classCounts[code] > 0 && (majority == CompiledTree.UNKNOWN_CLASS
+					|| classCounts[code] >= classCounts[majority])) {
+				majority = code;
+			}
+		}
+		return majority;
+	}
+
+	// Standard normal cumulative distribution. Abramowitz and Stegun 7.1.26,
+	// absolute error below 1.5e-7
+	static double normalCdf(double z) {
+		double x = Math.abs(z) / Math.sqrt(2);
+		double t = 1 / (1 + 0.3275911 * x);
+		double erf = 1 - t * (0.254829592 + t * (-0.284496736 + t * (1.421413741 + t * (-1.453152027
+				+ t * 1.061405429)))) * Math.exp(-x * x);
+		return z >= 0 ? (1 + erf) / 2 : (1 - erf) / 2;
+	}
+
+	// Snapshot of current tree as Node tree, eg. for NodeVisualizer or
+	// CompiledTree.compile(node, getAttributes(), getClassLabels()). null while
+	// root is still a leaf
+	public Node toNode() {
+		lock.readLock().lock();
+		try {
+			return root.isLeaf() ? null : toNode(root);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private Node toNode(TreeNode split) {
+		Node node = NodeUtility.prepareNode(attributes.get(split.attribute), split.threshold);
+		node.setSplitIndex(split.attribute);
+		if (split.left.isLeaf()) {
+			int classCode = majorityClass(split.left.classCounts);
+			node.setLeftClassification(classCode, classLabel(classCode));
+		} else {
+			node.setLeftNode(toNode(split.left));
+		}
+		if (split.right.isLeaf()) {
+			int classCode = majorityClass(split.right.classCounts);
+			node.setRightClassification(classCode, classLabel(classCode));
+		} else {
+			node.setRightNode(toNode(split.right));
+		}
+		node.setLeafNode(split.left.isLeaf() && split.right.isLeaf());
+		return node;
+	}
+
+	// Class label of class code. Empty for UNKNOWN_CLASS
+	public String classLabel(int code) {
+		lock.readLock().lock();
+		try {
+			return code == CompiledTree.UNKNOWN_CLASS ? "" : classLabels.get(code);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	// Class labels seen so far indexed by class code
+	public String[] getClassLabels() {
+		lock.readLock().lock();
+		try {
+			return classLabels.toArray(new String[0]);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public List<String> getAttributes() {
+		return attributes;
+	}
+
+	// Rows learnt so far
+	public long rowCount() {
+		lock.readLock().lock();
+		try {
+			return rowCount;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public int leafCount() {
+		lock.readLock().lock();
+		try {
+			return leafCount;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	// Number of split nodes
+	public int splitCount() {
+		lock.readLock().lock();
+		try {
+			return splitCount;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	// Estimated size of tree including leaf statistics
+	public long memoryBytes() {
+		lock.readLock().lock();
+		try {
+			long size = 0;
+			Deque<TreeNode> stack = new ArrayDeque<>();
+			stack.push(root);
+			while (!stack.isEmpty()) {
+				TreeNode node = stack.pop();
+				size += MemorySize.ofObject(4, 12);
+				if (node.isLeaf()) {
+					size += MemorySize.ofArray(node.classCounts.length, 8);
+					size += null == node.stats ? 0 : node.stats.memoryBytes();
+				} else {
+					stack.push(node.left);
+					stack.push(node.right);
+				}
+			}
+			return size;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package com.sinha.id3.util;
+
+/*
+ * Impurity functions selectable for tree builds, see TreeBuildConfig.
+ *
+ * ENTROPY is EntropyUtil.calculateEntropy(), two logarithms per class and
+ * split value, and the default so trees match earlier builds bit for bit.
+ * TABLE_ENTROPY is the same entropy as (T(n) - sum of T(n_i)) / n with
+ * T(x) = x * log2(x) looked up in a table for counts below TABLE_SIZE, so no
+ * logarithm is taken for most nodes. It differs from ENTROPY only by rounding,
+ * which may still pick another split where gains tie. GINI is Gini impurity
+ * 1 - sum of (n_i / n)^2, also free of logarithms, on a different scale (at
+ * most 1 - 1/classes) than entropy, so minGain needs rescaling
+ */
+public enum Impurity implements ImpurityFunction {
+
+	ENTROPY {
+		@Override
+		public double impurity(int[] classCounts, int total) {
+			return EntropyUtil.calculateEntropy(classCounts);
+		}
+	},
+
+	TABLE_ENTROPY {
+		@Override
+		public double impurity(int[] classCounts, int total) {
+			if (total == 0) {
+				return 0d;
+			}
+			double sum = 0d;
+			for (int count : classCounts) {
+				sum += nLog2n(count);
+			}
+			return (nLog2n(total) - sum) / total;
+		}
+	},
+
+	GINI {
+		@Override
+		public double impurity(int[] classCounts, int total) {
+			if (total == 0) {
+				return 0d;
+			}
+			long sumOfSquares = 0;
+			for (int count : classCounts) {
+				sumOfSquares += (long) count * count;
+			}
+			return 1d - (double) sumOfSquares / ((double) total * total);
+		}
+	};
+
+	// Counts below this have n * log2(n) in table, 512 KiB
+	public static final int TABLE_SIZE = 1 << 16;
+
+	private static final double[] N_LOG2_N = new double[TABLE_SIZE];
+
+	static {
+		for (int n = 1; n < TABLE_SIZE; n++) {
+			N_LOG2_N[n] = n * (Math.log(n) / Math.log(2));
+		}
+	}
+
+	// n * log2(n), 0 for n = 0
+	static double nLog2n(int n) {
+		return n < TABLE_SIZE ? N_LOG2_N[n] : n * (Math.log(n) / Math.log(2));
+	}
+}
@@ -0,0 +1,22 @@
+package com.sinha.id3.util;
+
+/*
+ * Impurity of a set of rows computed from its class counts. Split search
+ * takes Information Gain as impurity of a node less the size weighted impurity
+ * of its two sides, whichever function is used. Implementations in Impurity
+ */
+public interface ImpurityFunction {
+
+	// Impurity of total rows with given class counts. total is the sum of
+	// classCounts, known to callers sweeping split values
+	double impurity(int[] classCounts, int total);
+
+	// Impurity of rows with given class counts
+	default double impurity(int[] classCounts) {
+		int total = 0;
+		for (int count : classCounts) {
+			total += count;
+		}
+		return impurity(classCounts, total);
+	}
+}
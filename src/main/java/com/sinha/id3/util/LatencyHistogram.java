@@ -0,0 +1,83 @@
+package com.sinha.id3.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+ * Lock free histogram of latencies in microseconds, for percentiles of request
+ * latency under concurrent recording. Buckets are log linear: values below
+ * SUB_BUCKETS have a bucket each, larger values share a bucket with values of
+ * the same power of two and the same top bits, so the relative error of a
+ * percentile is below 1 / SUB_BUCKETS (about 6%)
+ */
+public class LatencyHistogram {
+
+	// Buckets per power of two
+	private static final int SUB_BUCKETS = 16;
+	private static final int SUB_BUCKET_BITS = 4;
+
+	private final AtomicLongArray counts = new AtomicLongArray(bucketOf(Long.MAX_VALUE) + 1);
+
+	public void record(long micros) {
+		counts.incrementAndGet(bucketOf(Math.max(0, micros)));
+	}
+
+	// Number of recorded values
+	public long count() {
+		long count = 0;
+		for (int bucket = 0; bucket < counts.length(); bucket++) {
+			count += counts.get(bucket);
+		}
+		return count;
+	}
+
+	// Latency at or below which given fraction (eg. 0.99) of values fall. Upper
+	// bound of the bucket holding that value, 0 when nothing recorded
+	public long percentile(double fraction) {
+		long[] snapshot = new long[counts.length()];
+		long count = 0;
+		for (int bucket = 0; bucket < snapshot.length; bucket++) {
+			snapshot[bucket] = counts.get(bucket);
+			count += snapshot[bucket];
+		}
+		if (count == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(fraction * count));
+		long seen = 0;
+		for (int bucket = 0; bucket < snapshot.length; bucket++) {
+			seen += snapshot[bucket];
+			if (seen >= rank) {
+				return upperBound(bucket);
+			}
+		}
+		return upperBound(snapshot.length - 1);
+	}
+
+	public void reset() {
+		for (int bucket = 0; bucket < counts.length(); bucket++) {
+			counts.set(bucket, 0);
+		}
+	}
+
+	// Bucket of value: value itself below SUB_BUCKETS, else power of two and top
+	// SUB_BUCKET_BITS bits below leading one
+	static int bucketOf(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	// Largest value falling into bucket
+	static long upperBound(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		long subBucket = bucket % SUB_BUCKETS;
+		long lower = (1L << exponent) | (subBucket << (exponent - SUB_BUCKET_BITS));
+		return lower + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+	}
+}
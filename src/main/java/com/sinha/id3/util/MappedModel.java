@@ -0,0 +1,247 @@
+package com.sinha.id3.util;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * Tree or forest scored straight from a memory mapped ModelFile. Nodes stay in
+ * the mapping and are read on each prediction, so processes mapping same file
+ * share its pages. Opening checks every node record once (feature index in
+ * range, children inside own tree and after parent, leaf class codes known),
+ * so a corrupt file is rejected instead of failing or looping in predictTree.
+ * Thread safe: mapping is only read with absolute gets
+ */
+public class MappedModel {
+
+	private final ByteBuffer nodes;
+
+	// First node of each tree
+	private final int[] treeStart;
+
+	// Feature index -> attribute name
+	private final String[] attributes;
+
+	// Class code -> class label
+	private final String[] classLabels;
+
+	private MappedModel(ByteBuffer nodes, int[] treeStart, String[] attributes, String[] classLabels) {
+		this.nodes = nodes;
+		this.treeStart = treeStart;
+		this.attributes = attributes;
+		this.classLabels = classLabels;
+	}
+
+	// Map model file written by ModelFile.write()
+	public static MappedModel open(String path) throws IOException {
+		ByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Model file " + path + " too large to map");
+			}
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		try {
+			return open(buffer, path);
+		} catch (BufferUnderflowException | IllegalArgumentException e) {
+			throw new IOException("Model file " + path + " truncated or corrupt", e);
+		}
+	}
+
+	private static MappedModel open(ByteBuffer buffer, String path) throws IOException {
+		if (buffer.remaining() < 6 * Integer.BYTES || buffer.getInt() != ModelFile.MAGIC) {
+			throw new IOException(path + " is not a model file");
+		}
+		int version = buffer.getInt();
+		if (version != ModelFile.VERSION) {
+			throw new IOException("Unsupported model version " + version + " in " + path);
+		}
+		int treeCount = buffer.getInt();
+		int attributeCount = buffer.getInt();
+		int classCount = buffer.getInt();
+		int nodeCount = buffer.getInt();
+		if (treeCount < 0 || attributeCount < 0 || classCount < 0 || nodeCount < 0
+				|| (long) attributeCount + classCount > buffer.remaining() / Integer.BYTES) {
+			throw new IOException("Model file " + path + " has invalid header");
+		}
+		String[] attributes = new String[attributeCount];
+		String[] classLabels = new String[classCount];
+		for (int i = 0; i < attributes.length; i++) {
+			attributes[i] = readString(buffer);
+		}
+		for (int code = 0; code < classLabels.length; code++) {
+			classLabels[code] = readString(buffer);
+		}
+
+		buffer.position((int) ModelFile.align(buffer.position()));
+		if (treeCount > buffer.remaining() / (2 * Integer.BYTES)) {
+			throw new IOException("Model file " + path + " has invalid tree table");
+		}
+		int[] treeStart = new int[treeCount];
+		int[] treeSize = new int[treeCount];
+		for (int tree = 0; tree < treeCount; tree++) {
+			treeStart[tree] = buffer.getInt();
+			treeSize[tree] = buffer.getInt();
+			if (treeStart[tree] < 0 || treeSize[tree] <= 0 || (long) treeStart[tree] + treeSize[tree] > nodeCount) {
+				throw new IOException("Model file " + path + " has invalid tree table");
+			}
+		}
+
+		buffer.position((int) ModelFile.align(buffer.position()));
+		if (buffer.remaining() != (long) nodeCount * ModelFile.NODE_BYTES) {
+			throw new IOException("Model file " + path + " truncated or corrupt");
+		}
+		ByteBuffer nodes = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+		for (int tree = 0; tree < treeCount; tree++) {
+			checkNodes(nodes, treeStart[tree], treeSize[tree], attributeCount, classCount, path);
+		}
+		return new MappedModel(nodes, treeStart, attributes, classLabels);
+	}
+
+	// Check node records of tree. Children are slots relative to tree start,
+	// always after their parent as nodes are stored depth first, so prediction
+	// ends within treeSize steps
+	private static void checkNodes(ByteBuffer nodes, int start, int treeSize, int attributeCount, int classCount,
+			String path) throws IOException {
+		for (int slot = 0; slot < treeSize; slot++) {
+			int record = (start + slot) * ModelFile.NODE_BYTES;
+			int feature = nodes.getInt(record + ModelFile.FEATURE_OFFSET);
+			if (feature < 0 || feature >= attributeCount) {
+				throw new IOException("Model file " + path + " node " + (start + slot) + " has invalid feature "
+						+ feature);
+			}
+			for (int offset : new int[] { ModelFile.LEFT_OFFSET, ModelFile.RIGHT_OFFSET }) {
+				int child = nodes.getInt(record + offset);
+				boolean valid = child < 0 ? CompiledTree.decodeLeaf(child) < classCount
+						: child > slot && child < treeSize;
+				if (!valid) {
+					throw new IOException("Model file " + path + " node " + (start + slot) + " has invalid child "
+							+ child);
+				}
+			}
+		}
+	}
+
+	private static String readString(ByteBuffer buffer) {
+		int length = buffer.getInt();
+		if (length < 0 || length > buffer.remaining()) {
+			throw new IllegalArgumentException("Invalid string length " + length);
+		}
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	// Returns class code predicted by tree for feature vector laid out as model
+	// attributes. CompiledTree.UNKNOWN_CLASS if tree cannot classify it
+	public int predictTree(int tree, double[] features) {
+		int base = treeStart[tree] * ModelFile.NODE_BYTES;
+		int record = base;
+		while (true) {
+			double value = features[nodes.getInt(record + ModelFile.FEATURE_OFFSET)];
+			double threshold = nodes.getDouble(record + ModelFile.THRESHOLD_OFFSET);
+			int next;
+			if (value <= threshold) {
+				next = nodes.getInt(record + ModelFile.LEFT_OFFSET);
+			} else if (value > threshold) {
+				next = nodes.getInt(record + ModelFile.RIGHT_OFFSET);
+			} else {
+				return CompiledTree.UNKNOWN_CLASS;
+			}
+			if (next < 0) {
+				return CompiledTree.decodeLeaf(next);
+			}
+			record = base + next * ModelFile.NODE_BYTES;
+		}
+	}
+
+	// Returns class code with most votes for feature vector, ties to higher class
+	// code. votes receives vote count per class code
+	public int predict(double[] features, int[] votes) {
+		Arrays.fill(votes, 0);
+		for (int tree = 0; tree < treeStart.length; tree++) {
+			int classCode = predictTree(tree, features);
+			if (classCode != CompiledTree.UNKNOWN_CLASS) {
+				votes[classCode]++;
+			}
+		}
+		return Utility.majorityClass(votes);
+	}
+
+	public int predict(double[] features) {
+		return predict(features, new int[classLabels.length]);
+	}
+
+	// Predict feature vectors as one batch into out[0..count). Tree major: each
+	// tree scores all vectors before next tree, so its nodes stay in cache.
+	// votes[i * classCount() + code] receives vote counts of vector i
+	public void predict(double[][] features, int count, int[] votes, int[] out) {
+		int classCount = classLabels.length;
+		Arrays.fill(votes, 0, count * classCount, 0);
+		for (int tree = 0; tree < treeStart.length; tree++) {
+			for (int i = 0; i < count; i++) {
+				int classCode = predictTree(tree, features[i]);
+				if (classCode != CompiledTree.UNKNOWN_CLASS) {
+					votes[i * classCount + classCode]++;
+				}
+			}
+		}
+		int[] vector = new int[classCount];
+		for (int i = 0; i < count; i++) {
+			System.arraycopy(votes, i * classCount, vector, 0, classCount);
+			out[i] = Utility.majorityClass(vector);
+		}
+	}
+
+	// Predict rows of data set. Model attributes looked up by name among data set
+	// columns once per call
+	public int[] predict(ColumnarDataset data, int[] rows) {
+		int[] columns = data.indicesOf(getAttributes());
+		double[] features = new double[attributes.length];
+		int[] votes = new int[classLabels.length];
+		int[] predictions = new int[rows.length];
+		for (int i = 0; i < rows.length; i++) {
+			for (int attr = 0; attr < columns.length; attr++) {
+				features[attr] = data.value(columns[attr], rows[i]);
+			}
+			predictions[i] = predict(features, votes);
+		}
+		return predictions;
+	}
+
+	public int treeCount() {
+		return treeStart.length;
+	}
+
+	public int nodeCount() {
+		return nodes.capacity() / ModelFile.NODE_BYTES;
+	}
+
+	public List<String> getAttributes() {
+		return Collections.unmodifiableList(Arrays.asList(attributes));
+	}
+
+	public int classCount() {
+		return classLabels.length;
+	}
+
+	// Class label for class code. Empty for UNKNOWN_CLASS
+	public String classLabel(int code) {
+		return code == CompiledTree.UNKNOWN_CLASS ? "" : classLabels[code];
+	}
+
+	@Override
+	public String toString() {
+		return "MappedModel [trees=" + treeCount() + ", nodes=" + nodeCount() + ", attributes="
+				+ Arrays.toString(attributes) + ", classLabels=" + Arrays.toString(classLabels) + "]";
+	}
+}
@@ -0,0 +1,79 @@
+package com.sinha.id3.util;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/*
+ * Rough retained size estimates for trained models, assuming a 64 bit JVM with
+ * compressed references: 12 byte object header, 16 byte array header, 4 byte
+ * references and sizes rounded up to 8 bytes. Strings counted as String object
+ * plus char[] (Java 8 layout)
+ */
+public class MemorySize {
+
+	private static final int OBJECT_HEADER = 12;
+	private static final int ARRAY_HEADER = 16;
+	private static final int REFERENCE = 4;
+
+	// Object with given number of reference fields and bytes of primitive fields
+	public static long ofObject(int referenceFields, int primitiveBytes) {
+		return align(OBJECT_HEADER + referenceFields * REFERENCE + primitiveBytes);
+	}
+
+	// Primitive array, or array of references with elementBytes = 4
+	public static long ofArray(int length, int elementBytes) {
+		return align(ARRAY_HEADER + (long) length * elementBytes);
+	}
+
+	public static long ofString(String value) {
+		return null == value ? 0 : ofObject(1, 4) + ofArray(value.length(), 2);
+	}
+
+	// String array and its strings
+	public static long ofStrings(String[] values) {
+		long size = ofArray(values.length, REFERENCE);
+		for (String value : values) {
+			size += ofString(value);
+		}
+		return size;
+	}
+
+	// Estimated size of tree of Node objects, including split values and label
+	// strings. Strings shared between nodes counted once. Training data is not
+	// counted
+	public static long ofNodeTree(Node root) {
+		Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+		long size = 0;
+		Deque<Node> stack = new ArrayDeque<>();
+		stack.push(root);
+		while (!stack.isEmpty()) {
+			Node node = stack.pop();
+
+			// 10 references, impurity, splitIndex, class and majority codes and leafNode
+			size += ofObject(10, 8 + 4 + 4 * 4 + 1);
+			if (null != node.getSplitVal() && seen.add(node.getSplitVal())) {
+				size += ofObject(0, 8);
+			}
+			for (String value : new String[] { node.getLabel(), node.getSplitAttr(), node.getLeftLabel(),
+					node.getRightLabel(), node.getLeftClassification(), node.getRightClassification() }) {
+				if (null != value && seen.add(value)) {
+					size += ofString(value);
+				}
+			}
+			if (null != node.getLeftNode()) {
+				stack.push(node.getLeftNode());
+			}
+			if (null != node.getRightNode()) {
+				stack.push(node.getRightNode());
+			}
+		}
+		return size;
+	}
+
+	private static long align(long size) {
+		return (size + 7) & ~7L;
+	}
+}
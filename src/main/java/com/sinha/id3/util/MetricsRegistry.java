@@ -0,0 +1,65 @@
+package com.sinha.id3.util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Process wide registry of named counters, dumped as JSON at the end of a run.
+ * Users look a counter up once and keep it in a static field, so counting on
+ * a hot path is a single LongAdder add with no lookup or contention. Names are
+ * dotted, eg. tree.split_search.nanos. Time counters sum System.nanoTime()
+ * differences over all threads, so may exceed wall clock time
+ */
+public class MetricsRegistry {
+
+	private static final ConcurrentMap<String, LongAdder> COUNTERS = new ConcurrentHashMap<>();
+
+	// Counter registered under name, created on first use
+	public static LongAdder counter(String name) {
+		return COUNTERS.computeIfAbsent(name, key -> new LongAdder());
+	}
+
+	// Current value of every counter, by name
+	public static SortedMap<String, Long> snapshot() {
+		SortedMap<String, Long> values = new TreeMap<>();
+		for (Map.Entry<String, LongAdder> entry : COUNTERS.entrySet()) {
+			values.put(entry.getKey(), entry.getValue().sum());
+		}
+		return values;
+	}
+
+	// Set every counter back to zero, eg. between benchmark runs
+	public static void reset() {
+		for (LongAdder counter : COUNTERS.values()) {
+			counter.reset();
+		}
+	}
+
+	// Counters as one JSON object, names in ascending order
+	public static String toJson() {
+		StringBuilder json = new StringBuilder("{");
+		String separator = "\n";
+		for (Map.Entry<String, Long> entry : snapshot().entrySet()) {
+			json.append(separator).append("  \"").append(escape(entry.getKey())).append("\": ")
+					.append(entry.getValue());
+			separator = ",\n";
+		}
+		return json.append("\n}\n").toString();
+	}
+
+	public static void writeJson(String path) throws IOException {
+		Files.write(Paths.get(path), toJson().getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String escape(String name) {
+		return name.replace("\\", "\\\\").replace("\"", "\\\"");
+	}
+}
@@ -0,0 +1,180 @@
+package com.sinha.id3.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/*
+ * Coalesces feature vectors of concurrent callers into batches scored tree
+ * major by one MappedModel.predict call. A scoring thread takes the oldest
+ * request and waits at most maxDelayMicros after its arrival for more, or
+ * until maxBatchRows vectors are collected. Callers block until their batch
+ * is scored. With maxDelayMicros = 0 only requests already queued are batched
+ */
+public class MicroBatcher {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(MicroBatcher.class);
+
+	// Feature vectors of one caller and their predictions once scored
+	private static class Pending {
+		private final double[][] features;
+		private final long arrival = System.nanoTime();
+		private final CompletableFuture<int[]> result = new CompletableFuture<>();
+
+		private Pending(double[][] features) {
+			this.features = features;
+		}
+	}
+
+	private final MappedModel model;
+
+	private final long maxDelayNanos;
+
+	private final int maxBatchRows;
+
+	private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+
+	private final List<Thread> scorers = new ArrayList<>();
+
+	private final LongAdder batches = new LongAdder();
+
+	private final LongAdder batchedRows = new LongAdder();
+
+	private volatile boolean running = true;
+
+	// Start scoringThreads threads, each forming and scoring its own batches
+	public MicroBatcher(MappedModel model, long maxDelayMicros, int maxBatchRows, int scoringThreads) {
+		if (maxDelayMicros < 0 || maxBatchRows < 1 || scoringThreads < 1) {
+			throw new IllegalArgumentException("Invalid batching parameters: delay " + maxDelayMicros
+					+ "us, batch rows " + maxBatchRows + ", threads " + scoringThreads);
+		}
+		this.model = model;
+		this.maxDelayNanos = TimeUnit.MICROSECONDS.toNanos(maxDelayMicros);
+		this.maxBatchRows = maxBatchRows;
+		for (int i = 0; i < scoringThreads; i++) {
+			Thread scorer = new Thread(this::run, "micro-batcher-" + i);
+			scorer.setDaemon(true);
+			scorer.start();
+			scorers.add(scorer);
+		}
+	}
+
+	// Class codes predicted for feature vectors, laid out as model attributes.
+	// Blocks until batch holding them is scored
+	public int[] predict(double[][] features) throws InterruptedException {
+		Pending pending = new Pending(features);
+		queue.add(pending);
+		if (!running && queue.remove(pending)) {
+			throw new IllegalStateException("Micro batcher closed");
+		}
+		try {
+			return pending.result.get();
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Scoring batch failed", e.getCause());
+		}
+	}
+
+	private void run() {
+		List<Pending> batch = new ArrayList<>();
+		while (running) {
+			try {
+				Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+				if (null == first) {
+					continue;
+				}
+				batch.add(first);
+				int rows = first.features.length;
+				long deadline = first.arrival + maxDelayNanos;
+				while (rows < maxBatchRows) {
+					long wait = deadline - System.nanoTime();
+					Pending next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : queue.poll();
+					if (null == next) {
+						break;
+					}
+					batch.add(next);
+					rows += next.features.length;
+				}
+				score(batch, rows);
+			} catch (InterruptedException e) {
+				// Closed while collecting batch. Requests taken off queue fail with it
+				Thread.currentThread().interrupt();
+				for (Pending pending : batch) {
+					if (!pending.result.isDone()) {
+						pending.result.completeExceptionally(new IllegalStateException("Micro batcher closed"));
+					}
+				}
+				break;
+			} catch (RuntimeException e) {
+				LOGGER.error("Scoring batch failed", e);
+				for (Pending pending : batch) {
+					pending.result.completeExceptionally(e);
+				}
+			} finally {
+				batch.clear();
+			}
+		}
+
+		// Requests queued after close() drained queue
+		failQueued();
+	}
+
+	// Score all vectors of batch in one call and hand each caller its slice
+	private void score(List<Pending> batch, int rows) {
+		double[][] features = new double[rows][];
+		int row = 0;
+		for (Pending pending : batch) {
+			System.arraycopy(pending.features, 0, features, row, pending.features.length);
+			row += pending.features.length;
+		}
+		int[] predictions = new int[rows];
+		model.predict(features, rows, new int[rows * model.classCount()], predictions);
+		row = 0;
+		for (Pending pending : batch) {
+			int[] result = new int[pending.features.length];
+			System.arraycopy(predictions, row, result, 0, result.length);
+			row += result.length;
+			pending.result.complete(result);
+		}
+		batches.increment();
+		batchedRows.add(rows);
+	}
+
+	// Number of batches scored
+	public long batchCount() {
+		return batches.sum();
+	}
+
+	// Number of feature vectors scored
+	public long rowCount() {
+		return batchedRows.sum();
+	}
+
+	public void resetCounters() {
+		batches.reset();
+		batchedRows.reset();
+	}
+
+	// Stop scoring threads. Requests still queued fail
+	public void close() {
+		running = false;
+		for (Thread scorer : scorers) {
+			scorer.interrupt();
+		}
+		failQueued();
+	}
+
+	private void failQueued() {
+		Pending pending;
+		while (null != (pending = queue.poll())) {
+			pending.result.completeExceptionally(new IllegalStateException("Micro batcher closed"));
+		}
+	}
+}
@@ -0,0 +1,124 @@
+package com.sinha.id3.util;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * Binary file format for compiled trees and forests, read by MappedModel. A
+ * single tree is stored as forest of one tree. Layout (little endian):
+ *
+ * header: magic, version, tree count, attribute count, class count, total node
+ * count, attribute names and class labels (length + UTF-8 bytes each), padding
+ * to 8 bytes
+ *
+ * tree table: first node and node count of each tree (2 ints per tree), padding
+ * to 8 bytes
+ *
+ * nodes: NODE_BYTES per node, trees one after another in compiled (depth first)
+ * order: threshold (double), feature index, left child, right child (int each)
+ * and 4 bytes padding. Child slots are relative to first node of tree, leaves
+ * encoded as in CompiledTree
+ */
+public class ModelFile {
+
+	// "ID3M"
+	static final int MAGIC = 0x4D334449;
+
+	static final int VERSION = 1;
+
+	static final int NODE_BYTES = 24;
+
+	// Offsets of fields within node record
+	static final int THRESHOLD_OFFSET = 0;
+	static final int FEATURE_OFFSET = 8;
+	static final int LEFT_OFFSET = 12;
+	static final int RIGHT_OFFSET = 16;
+
+	public static void write(CompiledTree tree, String path) throws IOException {
+		write(new CompiledForest(new CompiledTree[] { tree }), path);
+	}
+
+	// Write forest to file. Written to temporary file first and moved in place, so
+	// processes mapping file never see partial model
+	public static void write(CompiledForest forest, String path) throws IOException {
+		CompiledTree[] trees = forest.getTrees();
+		if (trees.length == 0) {
+			throw new IllegalArgumentException("Forest has no trees");
+		}
+		CompiledTree first = trees[0];
+		byte[][] attributes = new byte[first.attributeCount()][];
+		for (int i = 0; i < attributes.length; i++) {
+			attributes[i] = first.getAttribute(i).getBytes(StandardCharsets.UTF_8);
+		}
+		byte[][] classLabels = new byte[first.classCount()][];
+		for (int code = 0; code < classLabels.length; code++) {
+			classLabels[code] = first.classLabel(code).getBytes(StandardCharsets.UTF_8);
+		}
+		int nodeCount = forest.nodeCount();
+
+		long headerSize = 6 * Integer.BYTES;
+		for (byte[] name : attributes) {
+			headerSize += Integer.BYTES + name.length;
+		}
+		for (byte[] label : classLabels) {
+			headerSize += Integer.BYTES + label.length;
+		}
+		long tableOffset = align(headerSize);
+		long nodesOffset = align(tableOffset + 2L * Integer.BYTES * trees.length);
+		long totalSize = nodesOffset + (long) NODE_BYTES * nodeCount;
+		if (totalSize > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Model of " + totalSize + " bytes too large to map");
+		}
+
+		Path target = Paths.get(path);
+		Path temp = Paths.get(path + ".tmp");
+		try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, totalSize);
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+			buffer.putInt(MAGIC).putInt(VERSION).putInt(trees.length).putInt(attributes.length)
+					.putInt(classLabels.length).putInt(nodeCount);
+			for (byte[] name : attributes) {
+				buffer.putInt(name.length).put(name);
+			}
+			for (byte[] label : classLabels) {
+				buffer.putInt(label.length).put(label);
+			}
+
+			buffer.position((int) tableOffset);
+			int firstNode = 0;
+			for (CompiledTree tree : trees) {
+				buffer.putInt(firstNode).putInt(tree.size());
+				firstNode += tree.size();
+			}
+
+			int node = 0;
+			for (CompiledTree tree : trees) {
+				if (tree.attributeCount() != attributes.length || tree.classCount() != classLabels.length) {
+					throw new IllegalArgumentException("Trees of forest differ in attributes or class labels");
+				}
+				for (int slot = 0; slot < tree.size(); slot++) {
+					int record = (int) nodesOffset + node * NODE_BYTES;
+					buffer.putDouble(record + THRESHOLD_OFFSET, tree.thresholdAt(slot));
+					buffer.putInt(record + FEATURE_OFFSET, tree.featureAt(slot));
+					buffer.putInt(record + LEFT_OFFSET, tree.leftAt(slot));
+					buffer.putInt(record + RIGHT_OFFSET, tree.rightAt(slot));
+					node++;
+				}
+			}
+		}
+		Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	static long align(long position) {
+		return (position + 7) & ~7L;
+	}
+}
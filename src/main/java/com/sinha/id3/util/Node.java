@@ -11,7 +11,8 @@ public class Node {
 
 	private double impurity;
 
-	// Available data considered when splitting attributes
+	// Available data considered when splitting attributes. Not populated by tree
+	// construction so trees do not retain training data
 	private List<InputSet> data;
 
 	// Left Child Node
@@ -27,10 +28,14 @@ public class Node {
 	// Attribute used to split on
 	private String splitAttr;
 
+	// Column index of split attribute when built from a ColumnarDataset
+	private int splitIndex = -1;
+
 	// Attribute Value used to split
 	private Number splitVal;
 
-	// Available attributes considered when splitting
+	// Available attributes considered when splitting. Not populated by tree
+	// construction
 	private List<String> availableAttributes;
 
 	// Assigned Class value for left
@@ -39,6 +44,20 @@ public class Node {
 	// Assigned Class value for right
 	private String rightClassification;
 
+	// Class codes of left and right classification in ClassDictionary of data set
+	// tree was built on. CompiledTree.UNKNOWN_CLASS when classification was set
+	// as label only, eg. by builders on InputSet lists
+	private int leftClassCode = CompiledTree.UNKNOWN_CLASS;
+
+	private int rightClassCode = CompiledTree.UNKNOWN_CLASS;
+
+	// Majority class codes of rows going left and right, set when that side is a
+	// subtree. Lets a depth limited prefix of the tree make the side a leaf, see
+	// NodeUtility.prefix()
+	private int leftMajorityCode = CompiledTree.UNKNOWN_CLASS;
+
+	private int rightMajorityCode = CompiledTree.UNKNOWN_CLASS;
+
 	// Is node a leaf node
 	private boolean leafNode;
 
@@ -106,6 +125,14 @@ public class Node {
 		this.splitAttr = splitAttr;
 	}
 
+	public int getSplitIndex() {
+		return splitIndex;
+	}
+
+	public void setSplitIndex(int splitIndex) {
+		this.splitIndex = splitIndex;
+	}
+
 	public Number getSplitVal() {
 		return splitVal;
 	}
@@ -128,6 +155,17 @@ public class Node {
 
 	public void setLeftClassification(String leftClassification) {
 		this.leftClassification = leftClassification;
+		this.leftClassCode = CompiledTree.UNKNOWN_CLASS;
+	}
+
+	// Set left classification as class code together with its report label
+	public void setLeftClassification(int leftClassCode, String leftClassification) {
+		this.leftClassification = leftClassification;
+		this.leftClassCode = leftClassCode;
+	}
+
+	public int getLeftClassCode() {
+		return leftClassCode;
 	}
 
 	public String getRightClassification() {
@@ -136,6 +174,33 @@ public class Node {
 
 	public void setRightClassification(String rightClassification) {
 		this.rightClassification = rightClassification;
+		this.rightClassCode = CompiledTree.UNKNOWN_CLASS;
+	}
+
+	// Set right classification as class code together with its report label
+	public void setRightClassification(int rightClassCode, String rightClassification) {
+		this.rightClassification = rightClassification;
+		this.rightClassCode = rightClassCode;
+	}
+
+	public int getRightClassCode() {
+		return rightClassCode;
+	}
+
+	public int getLeftMajorityCode() {
+		return leftMajorityCode;
+	}
+
+	public void setLeftMajorityCode(int leftMajorityCode) {
+		this.leftMajorityCode = leftMajorityCode;
+	}
+
+	public int getRightMajorityCode() {
+		return rightMajorityCode;
+	}
+
+	public void setRightMajorityCode(int rightMajorityCode) {
+		this.rightMajorityCode = rightMajorityCode;
 	}
 
 	public boolean isLeafNode() {
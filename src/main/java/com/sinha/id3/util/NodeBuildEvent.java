@@ -0,0 +1,47 @@
+package com.sinha.id3.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/*
+ * Flight Recorder event for the work of one TreeBuildTask on its own node:
+ * split search, partitioning and classification, not its subtrees. Costs an
+ * unused allocation per node while no recording is running
+ */
+@Name("com.sinha.id3.NodeBuild")
+@Label("Node Build")
+@Category({ "ID3", "Tree Build" })
+@Description("Split search and partitioning of one tree node")
+@StackTrace(false)
+public class NodeBuildEvent extends jdk.jfr.Event {
+
+	@Label("Depth")
+	int depth;
+
+	@Label("Rows")
+	int rows;
+
+	@Label("Attributes")
+	@Description("Attributes searched for a split")
+	int attributes;
+
+	@Label("Candidates")
+	@Description("Split values evaluated over all attributes")
+	int candidates;
+
+	@Label("Split Mode")
+	String mode;
+
+	@Label("Split Attribute")
+	String splitAttribute;
+
+	@Label("Gain")
+	double gain;
+
+	@Label("Outcome")
+	@Description("Split, leaf split (children are leaves) or reason node was made a leaf")
+	String outcome;
+}
@@ -0,0 +1,150 @@
+package com.sinha.id3.util;
+
+/*
+ * Statistics of the rows of one tree node for mid point split search, gathered
+ * in fused passes over the rows instead of separate scans per attribute. The
+ * first pass counts classes, unless handed down by parent, and finds minimum
+ * and maximum of every attribute. The second counts classes of rows at or below
+ * the mid point of every attribute, giving the gain of each split and the class
+ * counts of the left child of the chosen one. Each row index and class code is
+ * read once per pass for all attributes.
+ *
+ * Buffers are primitive arrays held per thread and grown to the most attributes
+ * and classes seen by it. Results must be read before the thread forks or joins
+ * a task, as it may then build another node with the same buffers
+ */
+public class NodeStatistics {
+
+	private static final ThreadLocal<NodeStatistics> SCRATCH = ThreadLocal.withInitial(NodeStatistics::new);
+
+	private int classCount;
+
+	// Class counts of rows, only filled when counted by scan
+	private int[] classCounts = new int[0];
+
+	// Minimum and maximum value of each attribute, indexed as attributes
+	private double[] min = new double[0];
+	private double[] max = new double[0];
+
+	// Mid point of each attribute and number of rows at or below it
+	private double[] splitValues = new double[0];
+	private int[] leftSizes = new int[0];
+
+	// Class counts of rows at or below mid point, those of attribute i at
+	// [i * classCount, (i + 1) * classCount)
+	private int[] leftCounts = new int[0];
+
+	private NodeStatistics() {
+	}
+
+	// Statistics buffers of current thread, sized for attributeCount attributes
+	// and classCount classes
+	public static NodeStatistics forThread(int attributeCount, int classCount) {
+		NodeStatistics statistics = SCRATCH.get();
+		statistics.classCount = classCount;
+		if (statistics.classCounts.length < classCount) {
+			statistics.classCounts = new int[classCount];
+		}
+		if (statistics.min.length < attributeCount) {
+			statistics.min = new double[attributeCount];
+			statistics.max = new double[attributeCount];
+			statistics.splitValues = new double[attributeCount];
+			statistics.leftSizes = new int[attributeCount];
+		}
+		if (statistics.leftCounts.length < attributeCount * classCount) {
+			statistics.leftCounts = new int[attributeCount * classCount];
+		}
+		return statistics;
+	}
+
+	// First pass over rows[from..to). Finds range of each attribute, and counts
+	// classes when countClasses is set
+	public void scan(ColumnarDataset data, int[] rows, int from, int to, int[] attributes, boolean countClasses) {
+		double[][] columns = columns(data, attributes);
+		int[] classCodes = data.getClassCodes();
+		for (int i = 0; i < attributes.length; i++) {
+			min[i] = Double.POSITIVE_INFINITY;
+			max[i] = Double.NEGATIVE_INFINITY;
+		}
+		for (int code = 0; code < classCount; code++) {
+			classCounts[code] = 0;
+		}
+		for (int j = from; j < to; j++) {
+			int row = rows[j];
+			if (countClasses) {
+				classCounts[classCodes[row]]++;
+			}
+			for (int i = 0; i < columns.length; i++) {
+				double value = columns[i][row];
+				min[i] = Math.min(min[i], value);
+				max[i] = Math.max(max[i], value);
+			}
+		}
+	}
+
+	// Copy of class counts found by scan
+	public int[] getClassCounts() {
+		int[] counts = new int[classCount];
+		System.arraycopy(classCounts, 0, counts, 0, classCount);
+		return counts;
+	}
+
+	// Second pass over rows[from..to), after scan. Split candidate of each
+	// attribute at mid point of its range, indexed as attributes, gain measured
+	// as decrease of impurity. classCounts are those of all rows
+	public SplitCandidate[] midSplits(ColumnarDataset data, int[] rows, int from, int to, int[] attributes,
+			int[] classCounts, ImpurityFunction impurity) {
+		double[][] columns = columns(data, attributes);
+		int[] classCodes = data.getClassCodes();
+		for (int i = 0; i < attributes.length; i++) {
+			splitValues[i] = (min[i] + max[i]) / 2;
+			leftSizes[i] = 0;
+		}
+		for (int k = 0; k < attributes.length * classCount; k++) {
+			leftCounts[k] = 0;
+		}
+		for (int j = from; j < to; j++) {
+			int row = rows[j];
+			int code = classCodes[row];
+			for (int i = 0; i < columns.length; i++) {
+				if (columns[i][row] <= splitValues[i]) {
+					leftCounts[i * classCount + code]++;
+					leftSizes[i]++;
+				}
+			}
+		}
+
+		// Right counts are those of all rows less left ones
+		double impurityBeforeSplit = impurity.impurity(classCounts, to - from);
+		int[] left = new int[classCount];
+		int[] right = new int[classCount];
+		SplitCandidate[] candidates = new SplitCandidate[attributes.length];
+		for (int i = 0; i < attributes.length; i++) {
+			for (int code = 0; code < classCount; code++) {
+				left[code] = leftCounts[i * classCount + code];
+				right[code] = classCounts[code] - left[code];
+			}
+			candidates[i] = new SplitCandidate(attributes[i], splitValues[i],
+					EntropyUtil.calculateInfoGain(impurityBeforeSplit, impurity.impurity(left, leftSizes[i]),
+							impurity.impurity(right, to - from - leftSizes[i]), leftSizes[i],
+							to - from - leftSizes[i]));
+		}
+		return candidates;
+	}
+
+	// Copy of class counts of rows at or below mid point of attributes[index],
+	// found by midSplits
+	public int[] getLeftCounts(int index) {
+		int[] counts = new int[classCount];
+		System.arraycopy(leftCounts, index * classCount, counts, 0, classCount);
+		return counts;
+	}
+
+	private static double[][] columns(ColumnarDataset data, int[] attributes) {
+		double[][] columns = new double[attributes.length][];
+		for (int i = 0; i < attributes.length; i++) {
+			columns[i] = data.getColumn(attributes[i]);
+		}
+		return columns;
+	}
+}
@@ -1,5 +1,10 @@
 package com.sinha.id3.util;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -14,17 +19,148 @@ public class NodeUtility {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(NodeUtility.class);
 
-	// Prepare node by populating values
-	public static Node prepareNode(String splitAttr, double splitVal, List<InputSet> inputList,
-			List<String> attributeList) {
+	// Prepare node by populating values. Input set and attributes of node are not
+	// stored, so a built tree does not keep its training data reachable
+	public static Node prepareNode(String splitAttr, double splitVal) {
 		Node node = new Node();
 		node.setLabel(splitAttr);
 		node.setSplitAttr(splitAttr);
 		node.setSplitVal(splitVal);
-		node.setData(inputList);
 		node.setLeftLabel("<=" + splitVal);
 		node.setRightLabel(">" + splitVal);
-		node.setAvailableAttributes(attributeList);
+		return node;
+	}
+
+	// Prepare node for split on column attribute of columnar data set
+	public static Node prepareNode(ColumnarDataset data, int attribute, double splitVal) {
+		Node node = new Node();
+		node.setLabel(data.getAttribute(attribute));
+		node.setSplitAttr(data.getAttribute(attribute));
+		node.setSplitIndex(attribute);
+		node.setSplitVal(splitVal);
+		node.setLeftLabel("<=" + splitVal);
+		node.setRightLabel(">" + splitVal);
+		return node;
+	}
+
+	// Copy of top maxDepth levels of tree built on data set. Subtrees below
+	// maxDepth are replaced by leaves of their majority class, so for a mid or
+	// greedy tree the result is the tree that would have been built with this
+	// maxDepth and otherwise the same limits (node budget and build time aside).
+	// Nodes are copied, tree itself is not changed
+	public static Node prefix(Node root, int maxDepth, ColumnarDataset data) {
+		if (maxDepth < 1) {
+			throw new IllegalArgumentException("Prefix depth must be at least 1: " + maxDepth);
+		}
+		return prefix(root, 1, maxDepth, data);
+	}
+
+	private static Node prefix(Node node, int depth, int maxDepth, ColumnarDataset data) {
+		Node copy = new Node();
+		copy.setLabel(node.getLabel());
+		copy.setImpurity(node.getImpurity());
+		copy.setSplitAttr(node.getSplitAttr());
+		copy.setSplitIndex(node.getSplitIndex());
+		copy.setSplitVal(node.getSplitVal());
+		copy.setLeftLabel(node.getLeftLabel());
+		copy.setRightLabel(node.getRightLabel());
+		copy.setLeafNode(node.isLeafNode());
+
+		// Majority codes kept on nodes still split in the prefix, whether or not a
+		// side is a leaf. Nodes at maxDepth become leaves, which carry none
+		if (depth < maxDepth) {
+			copy.setLeftMajorityCode(node.getLeftMajorityCode());
+			copy.setRightMajorityCode(node.getRightMajorityCode());
+		}
+		if (null == node.getLeftNode()) {
+			copy.setLeftClassification(node.getLeftClassCode(), node.getLeftClassification());
+		} else if (depth < maxDepth) {
+			copy.setLeftNode(prefix(node.getLeftNode(), depth + 1, maxDepth, data));
+		} else {
+			copy.setLeftClassification(node.getLeftMajorityCode(), majorityLabel(node.getLeftMajorityCode(), data));
+		}
+		if (null == node.getRightNode()) {
+			copy.setRightClassification(node.getRightClassCode(), node.getRightClassification());
+		} else if (depth < maxDepth) {
+			copy.setRightNode(prefix(node.getRightNode(), depth + 1, maxDepth, data));
+		} else {
+			copy.setRightClassification(node.getRightMajorityCode(),
+					majorityLabel(node.getRightMajorityCode(), data));
+		}
+		if (depth == maxDepth) {
+			copy.setLeafNode(Boolean.TRUE);
+		}
+		return copy;
+	}
+
+	private static String majorityLabel(int code, ColumnarDataset data) {
+		if (code == CompiledTree.UNKNOWN_CLASS) {
+			throw new IllegalArgumentException("Tree has no majority classes, not built from columnar data set");
+		}
+		return data.classLabel(code);
+	}
+
+	// Number of split nodes in tree
+	public static int splitCount(Node root) {
+		int count = 0;
+		Deque<Node> stack = new ArrayDeque<>();
+		stack.push(root);
+		while (!stack.isEmpty()) {
+			Node node = stack.pop();
+			count++;
+			if (null != node.getLeftNode()) {
+				stack.push(node.getLeftNode());
+			}
+			if (null != node.getRightNode()) {
+				stack.push(node.getRightNode());
+			}
+		}
+		return count;
+	}
+
+	// Write tree built on columnar data set, depth first. Each node is stored as
+	// split column index, split value, leaf flag, class codes of both sides and
+	// majority codes of both sides, followed by its children. Names and labels
+	// are not written, readTree() takes them from the data set
+	public static void writeTree(Node node, DataOutput out) throws IOException {
+		out.writeBoolean(null != node);
+		if (null == node) {
+			return;
+		}
+		out.writeInt(node.getSplitIndex());
+		out.writeDouble(node.getSplitVal().doubleValue());
+		out.writeBoolean(node.isLeafNode());
+		out.writeInt(node.getLeftClassCode());
+		out.writeInt(node.getRightClassCode());
+		out.writeInt(node.getLeftMajorityCode());
+		out.writeInt(node.getRightMajorityCode());
+		writeTree(node.getLeftNode(), out);
+		writeTree(node.getRightNode(), out);
+	}
+
+	// Read tree written by writeTree() for same data set
+	public static Node readTree(DataInput in, ColumnarDataset data) throws IOException {
+		if (!in.readBoolean()) {
+			return null;
+		}
+		int splitIndex = in.readInt();
+		if (splitIndex < 0 || splitIndex >= data.attributeCount()) {
+			throw new IOException("Split column " + splitIndex + " not in data set");
+		}
+		Node node = prepareNode(data, splitIndex, in.readDouble());
+		node.setLeafNode(in.readBoolean());
+		int leftClassCode = in.readInt();
+		int rightClassCode = in.readInt();
+		if (leftClassCode != CompiledTree.UNKNOWN_CLASS) {
+			node.setLeftClassification(leftClassCode, data.classLabel(leftClassCode));
+		}
+		if (rightClassCode != CompiledTree.UNKNOWN_CLASS) {
+			node.setRightClassification(rightClassCode, data.classLabel(rightClassCode));
+		}
+		node.setLeftMajorityCode(in.readInt());
+		node.setRightMajorityCode(in.readInt());
+		node.setLeftNode(readTree(in, data));
+		node.setRightNode(readTree(in, data));
 		return node;
 	}
 
@@ -59,4 +195,27 @@ public class NodeUtility {
 		node.setRightClassification(String.valueOf(rightClass));
 		LOGGER.debug("Exit Classification");
 	}
+
+	// Perform classification on input node using class counts of rows going left
+	// and right, eg. known from split search
+	public static void performClassification(Node node, int[] leftCounts, int[] rightCounts,
+			ColumnarDataset data) {
+		int leftClass = Utility.majorityClass(leftCounts);
+		int rightClass = Utility.majorityClass(rightCounts);
+		if (leftClass == -1 || rightClass == -1) {
+			int[] nodeCounts = new int[leftCounts.length];
+			for (int code = 0; code < nodeCounts.length; code++) {
+				nodeCounts[code] = leftCounts[code] + rightCounts[code];
+			}
+			int nodeClass = Utility.majorityClass(nodeCounts);
+			leftClass = leftClass == -1 ? nodeClass : leftClass;
+			rightClass = rightClass == -1 ? nodeClass : rightClass;
+		}
+
+		// Mark as leaf node
+		node.setLeafNode(Boolean.TRUE);
+		node.setLeftClassification(leftClass, data.classLabel(leftClass));
+		node.setRightClassification(rightClass, data.classLabel(rightClass));
+		LOGGER.debug("Exit Classification");
+	}
 }
@@ -22,10 +22,10 @@ public class NodeVisualizer extends JFrame {
 	private static final long serialVersionUID = -2707712944901661771L;
 
 	// X coordinate start point
-	private int initX = 720;
+	private static final int INIT_X = 720;
 
 	// Y coordinate start point
-	private int initY = 20;
+	private static final int INIT_Y = 20;
 
 	// Width for new cell insertion
 	private static final int CELLWIDTH = 100;
@@ -44,7 +44,20 @@ public class NodeVisualizer extends JFrame {
 
 	public NodeVisualizer(Node node, String type, String targetDepth) throws IOException {
 		super("ID3 Tree Visualization");
+		getContentPane().add(new mxGraphComponent(buildGraph(node)));
+	}
+
+	// Render tree to PNG file ./Tree-<type> <targetDepth>. Needs no display, so
+	// usable in headless mode
+	public static void saveImage(Node node, String type, String targetDepth) throws IOException {
+		File file = new File("./Tree-" + type + " " + targetDepth);
+		file.createNewFile();
+		RenderedImage img = mxCellRenderer.createBufferedImage(buildGraph(node), null, 1, Color.WHITE, false, null);
+		ImageIO.write(img, "png", file);
+	}
 
+	// Lay out tree as graph of cells
+	private static mxGraph buildGraph(Node node) {
 		mxGraph graph = new mxGraph();
 		Object parent = graph.getDefaultParent();
 
@@ -54,28 +67,23 @@ public class NodeVisualizer extends JFrame {
 		int depth = 1;
 		try {
 
-			// Insert root node at initX and initY
-			Object v1 = graph.insertVertex(parent, null, node.getLabel(), initX, initY, CELLWIDTH, CELLHEIGHT);
+			// Insert root node at INIT_X and INIT_Y
+			Object v1 = graph.insertVertex(parent, null, node.getLabel(), INIT_X, INIT_Y, CELLWIDTH, CELLHEIGHT);
 			if (null != node.getLeftNode()) {
 
 				// Draw left node at initX - delta and inity - delta
-				drawLeftNode(graph, parent, node.getLeftNode(), initX - X_DELTA, initY + Y_DELTA, v1, node, depth);
+				drawLeftNode(graph, parent, node.getLeftNode(), INIT_X - X_DELTA, INIT_Y + Y_DELTA, v1, node, depth);
 			}
 			if (null != node.getRightNode()) {
 
 				// Draw right node at initX - delta and inity - delta
-				drawRightNode(graph, parent, node.getRightNode(), initX + X_DELTA, initY + Y_DELTA, v1, node, depth);
+				drawRightNode(graph, parent, node.getRightNode(), INIT_X + X_DELTA, INIT_Y + Y_DELTA, v1, node,
+						depth);
 			}
 		} finally {
 			graph.getModel().endUpdate();
 		}
-
-		File file = new File("./Tree-" + type + " " + targetDepth);
-		file.createNewFile();
-		mxGraphComponent graphComponent = new mxGraphComponent(graph);
-		RenderedImage img = mxCellRenderer.createBufferedImage(graph, null, 1, Color.WHITE, false, null);
-		ImageIO.write(img, "png", file);
-		getContentPane().add(graphComponent);
+		return graph;
 	}
 
 	// Draw left node
@@ -0,0 +1,27 @@
+package com.sinha.id3.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/*
+ * Flight Recorder event for in place partitioning of the rows of a split node
+ */
+@Name("com.sinha.id3.Partition")
+@Label("Partition")
+@Category({ "ID3", "Tree Build" })
+@Description("Partitioning of node rows on split attribute and value")
+@StackTrace(false)
+public class PartitionEvent extends jdk.jfr.Event {
+
+	@Label("Depth")
+	int depth;
+
+	@Label("Rows")
+	int rows;
+
+	@Label("Left Rows")
+	int leftRows;
+}
@@ -26,19 +26,29 @@ public class PlotGraph {
 		double tpr = classMetric.getTpCount() / (classMetric.getTpCount() + classMetric.getFnCount());
 		double[] ydata = new double[] { 0d, tpr, 1d };
 		LOGGER.info("{} FPR: {}, TPR: {}", title, fpr, tpr);
-
-		// Initialise Chart
-		XYChart chart = QuickChart.getChart(title + " ROC", "FPR", "TPR", "ROC Curve " + title + " " + typeDecision,
-				xdata, ydata);
-		chart.getStyler().setLegendPosition(LegendPosition.InsideSE);
-		chart.getStyler().setLegendVisible(true);
-
-		// Display Chart
-		new SwingWrapper<XYChart>(chart).displayChart();
-
-		// Save chart to file
-		BitmapEncoder.saveBitmapWithDPI(chart, "./" + title + " " + typeDecision,
-				BitmapFormat.PNG, 300);
+		if (!RenderQueue.isNeeded(RenderQueue.Artifact.CHARTS)) {
+			return;
+		}
+
+		// Chart built, displayed and saved on render queue
+		RenderQueue.submit("ROC " + title + " " + typeDecision, () -> {
+
+			// Initialise Chart
+			XYChart chart = QuickChart.getChart(title + " ROC", "FPR", "TPR",
+					"ROC Curve " + title + " " + typeDecision, xdata, ydata);
+			chart.getStyler().setLegendPosition(LegendPosition.InsideSE);
+			chart.getStyler().setLegendVisible(true);
+
+			// Display Chart
+			if (!RenderQueue.isHeadless()) {
+				new SwingWrapper<XYChart>(chart).displayChart();
+			}
+
+			// Save chart to file
+			if (RenderQueue.isRequested(RenderQueue.Artifact.CHARTS)) {
+				BitmapEncoder.saveBitmapWithDPI(chart, "./" + title + " " + typeDecision, BitmapFormat.PNG, 300);
+			}
+		});
 	}
 
 }
\ No newline at end of file
@@ -67,4 +67,40 @@ public class ReadInput {
 		}
 		return inputList;
 	}
+
+	/*
+	 * Read from file specified in path variable directly into primitive columns.
+	 * File format same as readFile(). File memory mapped and parsed from bytes by
+	 * CsvColumnParser. Returns ColumnarDataset.
+	 *
+	 * Parsed data set is cached in binary form beside source file (see
+	 * DatasetCache) and later reads load the cache instead of parsing, as long as
+	 * source file and attributes are unchanged.
+	 */
+	public static ColumnarDataset readColumnar(String path, List<String> attributes) throws IOException {
+		if (StringUtils.isBlank(path)) {
+			LOGGER.error("No file path input");
+			System.exit(-1);
+		}
+		ColumnarDataset dataset = DatasetCache.load(path, attributes);
+		if (null != dataset) {
+			LOGGER.info("Loaded {} from cache {}", path, DatasetCache.cacheFile(path));
+			return dataset;
+		}
+		try {
+			dataset = CsvColumnParser.parse(path, attributes);
+		} catch (Exception e) {
+			LOGGER.error("Exception opening file: {}", path);
+			LOGGER.error("Exception: ", e);
+			System.exit(-1);
+		}
+
+		// Failing to write cache only costs a parse on next read
+		try {
+			DatasetCache.write(path, dataset);
+		} catch (IOException e) {
+			LOGGER.warn("Could not write cache for {}: {}", path, e.toString());
+		}
+		return dataset;
+	}
 }
@@ -0,0 +1,121 @@
+package com.sinha.id3.util;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/*
+ * Background rendering of charts, tree images and ROC files. Jobs run one after
+ * another on a single daemon thread so training and evaluation do not wait for
+ * image encoding or Swing. Queue is bounded: when CAPACITY jobs are waiting,
+ * submitting blocks until one finishes. In headless mode no window is opened and
+ * only requested artifacts are written
+ */
+public class RenderQueue {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(RenderQueue.class);
+
+	// Jobs waiting to be rendered before submit() blocks
+	public static final int CAPACITY = 16;
+
+	// Files that can be written
+	public enum Artifact {
+		// PNG image of each visualised tree
+		TREE,
+		// ROC chart PNG of each class and of all classes
+		CHARTS,
+		// Forest ROC curve PNG and coordinates CSV
+		ROC
+	}
+
+	// Rendering work. May throw, failures are logged and do not stop queue
+	public interface RenderJob {
+		void render() throws Exception;
+	}
+
+	private static final BlockingQueue<Runnable> QUEUE = new ArrayBlockingQueue<>(CAPACITY);
+
+	private static volatile boolean headless = false;
+
+	private static volatile Set<Artifact> artifacts = Collections.unmodifiableSet(EnumSet.allOf(Artifact.class));
+
+	private static Thread worker;
+
+	// Set headless mode and artifacts to write. Must be called before first job is
+	// submitted
+	public static void configure(boolean headlessMode, Set<Artifact> requested) {
+		headless = headlessMode;
+		artifacts = Collections.unmodifiableSet(requested.isEmpty() ? EnumSet.noneOf(Artifact.class)
+				: EnumSet.copyOf(requested));
+		LOGGER.info("Rendering: headless={}, artifacts={}", headless, artifacts);
+	}
+
+	// True when no Swing window may be opened
+	public static boolean isHeadless() {
+		return headless;
+	}
+
+	public static boolean isRequested(Artifact artifact) {
+		return artifacts.contains(artifact);
+	}
+
+	// True when job producing artifact has anything to do: a window to show or a
+	// file to write
+	public static boolean isNeeded(Artifact artifact) {
+		return !headless || isRequested(artifact);
+	}
+
+	// Queue job for background rendering. Blocks while queue is full
+	public static void submit(String description, RenderJob job) {
+		startWorker();
+		try {
+			QUEUE.put(() -> {
+				long start = System.currentTimeMillis();
+				try {
+					job.render();
+					LOGGER.debug("Rendered {} in {} ms", description, System.currentTimeMillis() - start);
+				} catch (Exception e) {
+					LOGGER.error("Exception rendering {}: ", description, e);
+				}
+			});
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			LOGGER.error("Interrupted, not rendering {}", description);
+		}
+	}
+
+	// Wait until all jobs submitted so far are rendered. Called before exit, as
+	// worker is a daemon thread
+	public static void awaitCompletion() {
+		CountDownLatch done = new CountDownLatch(1);
+		submit("completion marker", done::countDown);
+		try {
+			done.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static synchronized void startWorker() {
+		if (null != worker) {
+			return;
+		}
+		worker = new Thread(() -> {
+			while (true) {
+				try {
+					QUEUE.take().run();
+				} catch (InterruptedException e) {
+					return;
+				}
+			}
+		}, "render-queue");
+		worker.setDaemon(true);
+		worker.start();
+	}
+}
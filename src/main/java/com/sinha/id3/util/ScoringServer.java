@@ -0,0 +1,354 @@
+package com.sinha.id3.util;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/*
+ * HTTP scoring server for a tree or forest model file, on the JDK HTTP server.
+ *
+ * POST /predict: body holds one feature vector per line, comma separated
+ * values in model attribute order. Response holds predicted class label of
+ * each vector, one per line. Vectors of concurrent requests are scored
+ * together by a MicroBatcher.
+ *
+ * GET /stats: request, vector and batch counts, throughput and p50/p99 request
+ * latency since start or last reset, as name=value lines. GET /stats?reset
+ * resets them after reporting.
+ *
+ * Requests are handled on a virtual thread each on Java 21+, else on a fixed
+ * pool of handler threads, each blocking while its vectors wait for their
+ * batch. Request bodies over maxBodyBytes are refused with 413
+ */
+public class ScoringServer {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ScoringServer.class);
+
+	public static final int DEFAULT_PORT = 8080;
+	public static final long DEFAULT_MAX_DELAY_MICROS = 500;
+	public static final int DEFAULT_MAX_BATCH_ROWS = 256;
+	public static final int DEFAULT_HANDLER_THREADS = 64;
+	public static final int DEFAULT_MAX_BODY_BYTES = 8 << 20;
+
+	private final MappedModel model;
+
+	private final HttpServer server;
+
+	private final ExecutorService handlers;
+
+	private final MicroBatcher batcher;
+
+	// Longest request body read, so one request cannot exhaust the heap
+	private final int maxBodyBytes;
+
+	private final LatencyHistogram latency = new LatencyHistogram();
+
+	private final LongAdder requests = new LongAdder();
+
+	private final LongAdder rows = new LongAdder();
+
+	private final LongAdder errors = new LongAdder();
+
+	private volatile long countersSince = System.nanoTime();
+
+	private ScoringServer(MappedModel model, HttpServer server, ExecutorService handlers, MicroBatcher batcher,
+			int maxBodyBytes) {
+		this.model = model;
+		this.server = server;
+		this.handlers = handlers;
+		this.batcher = batcher;
+		this.maxBodyBytes = maxBodyBytes;
+	}
+
+	// Start server for model on port (0 for any free port). Scoring runs on one
+	// thread per available processor. Embedding processes should run with
+	// -Dsun.net.httpserver.nodelay=true, see main()
+	public static ScoringServer start(MappedModel model, int port, long maxDelayMicros, int maxBatchRows,
+			int handlerThreads) throws IOException {
+		return start(model, port, maxDelayMicros, maxBatchRows, handlerThreads, DEFAULT_MAX_BODY_BYTES);
+	}
+
+	// Start server refusing request bodies over maxBodyBytes. handlerThreads only
+	// used where virtual threads are not available
+	public static ScoringServer start(MappedModel model, int port, long maxDelayMicros, int maxBatchRows,
+			int handlerThreads, int maxBodyBytes) throws IOException {
+		if (maxBodyBytes < 1) {
+			throw new IllegalArgumentException("Invalid max body bytes: " + maxBodyBytes);
+		}
+		ExecutorService handlers = handlerExecutor(handlerThreads);
+		MicroBatcher batcher = new MicroBatcher(model, maxDelayMicros, maxBatchRows,
+				Runtime.getRuntime().availableProcessors());
+		HttpServer server = HttpServer.create(new InetSocketAddress(port), 0);
+		ScoringServer scoringServer = new ScoringServer(model, server, handlers, batcher, maxBodyBytes);
+		server.createContext("/predict", scoringServer::handlePredict);
+		server.createContext("/stats", scoringServer::handleStats);
+		server.setExecutor(handlers);
+		server.start();
+		LOGGER.info("Scoring {} on port {}, max delay {}us, max batch {} rows", model, scoringServer.getPort(),
+				maxDelayMicros, maxBatchRows);
+		return scoringServer;
+	}
+
+	// Virtual thread per request on Java 21+, looked up reflectively as code
+	// targets Java 11. Otherwise fixed pool of handlerThreads daemon threads
+	private static ExecutorService handlerExecutor(int handlerThreads) {
+		try {
+			ExecutorService handlers = (ExecutorService) Executors.class
+					.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+			LOGGER.info("Handling requests on virtual threads");
+			return handlers;
+		} catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+			LOGGER.info("Virtual threads not available, handling requests on {} threads", handlerThreads);
+		}
+		AtomicInteger threadCount = new AtomicInteger();
+		return Executors.newFixedThreadPool(handlerThreads, runnable -> {
+			Thread thread = new Thread(runnable, "scoring-handler-" + threadCount.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	private void handlePredict(HttpExchange exchange) throws IOException {
+		long start = System.nanoTime();
+		try {
+			if (!"POST".equals(exchange.getRequestMethod())) {
+				send(exchange, 405, "Use POST\n");
+				return;
+			}
+			byte[] requestBody = readBody(exchange);
+			if (null == requestBody) {
+				errors.increment();
+				send(exchange, 413, "Request body over " + maxBodyBytes + " bytes\n");
+				return;
+			}
+			double[][] features;
+			try {
+				features = parse(requestBody);
+			} catch (IllegalArgumentException e) {
+				errors.increment();
+				send(exchange, 400, e.getMessage() + "\n");
+				return;
+			}
+			int[] predictions = batcher.predict(features);
+			StringBuilder body = new StringBuilder(predictions.length * 4);
+			for (int prediction : predictions) {
+				body.append(model.classLabel(prediction)).append('\n');
+			}
+			send(exchange, 200, body.toString());
+			requests.increment();
+			rows.add(features.length);
+			latency.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			errors.increment();
+			send(exchange, 503, "Interrupted\n");
+		} catch (RuntimeException e) {
+			LOGGER.error("Scoring request failed", e);
+			errors.increment();
+			send(exchange, 500, "Scoring failed\n");
+		} finally {
+			exchange.close();
+		}
+	}
+
+	// Request body, null when over maxBodyBytes by its declared length or the
+	// bytes sent
+	private byte[] readBody(HttpExchange exchange) throws IOException {
+		String length = exchange.getRequestHeaders().getFirst("Content-Length");
+		if (null != length) {
+			try {
+				if (Long.parseLong(length.trim()) > maxBodyBytes) {
+					return null;
+				}
+			} catch (NumberFormatException e) {
+				// Counted while reading instead
+			}
+		}
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		try (InputStream in = exchange.getRequestBody()) {
+			int read;
+			while (-1 != (read = in.read(buffer))) {
+				if (body.size() + read > maxBodyBytes) {
+					return null;
+				}
+				body.write(buffer, 0, read);
+			}
+		}
+		return body.toByteArray();
+	}
+
+	// Read feature vectors of request body, one per non blank line
+	private double[][] parse(byte[] requestBody) throws IOException {
+		List<double[]> vectors = new ArrayList<>();
+		int attributeCount = model.getAttributes().size();
+		try (BufferedReader reader = new BufferedReader(
+				new InputStreamReader(new ByteArrayInputStream(requestBody), StandardCharsets.UTF_8))) {
+			String line;
+			while (null != (line = reader.readLine())) {
+				if (line.trim().isEmpty()) {
+					continue;
+				}
+				String[] values = line.split(",");
+				if (values.length != attributeCount) {
+					throw new IllegalArgumentException("Line " + (vectors.size() + 1) + ": expected "
+							+ attributeCount + " values " + model.getAttributes() + ", got " + values.length);
+				}
+				double[] vector = new double[attributeCount];
+				for (int i = 0; i < attributeCount; i++) {
+					try {
+						vector[i] = Double.parseDouble(values[i].trim());
+					} catch (NumberFormatException e) {
+						throw new IllegalArgumentException(
+								"Line " + (vectors.size() + 1) + ": not a number: " + values[i]);
+					}
+				}
+				vectors.add(vector);
+			}
+		}
+		if (vectors.isEmpty()) {
+			throw new IllegalArgumentException("No feature vectors in request");
+		}
+		return vectors.toArray(new double[0][]);
+	}
+
+	private void handleStats(HttpExchange exchange) throws IOException {
+		try {
+			send(exchange, 200, stats());
+			String query = exchange.getRequestURI().getQuery();
+			if (null != query && query.startsWith("reset")) {
+				resetStats();
+			}
+		} finally {
+			exchange.close();
+		}
+	}
+
+	// Counters as name=value lines. Latencies in microseconds
+	public String stats() {
+		double seconds = Math.max(1e-9, (System.nanoTime() - countersSince) / 1e9);
+		long requestCount = requests.sum();
+		long rowCount = rows.sum();
+		long batchCount = batcher.batchCount();
+		StringBuilder stats = new StringBuilder();
+		stats.append("requests=").append(requestCount).append('\n');
+		stats.append("vectors=").append(rowCount).append('\n');
+		stats.append("errors=").append(errors.sum()).append('\n');
+		stats.append("batches=").append(batchCount).append('\n');
+		stats.append("mean_batch_vectors=")
+				.append(String.format("%.1f", batchCount == 0 ? 0d : (double) batcher.rowCount() / batchCount))
+				.append('\n');
+		stats.append("seconds=").append(String.format("%.3f", seconds)).append('\n');
+		stats.append("requests_per_second=").append(String.format("%.1f", requestCount / seconds)).append('\n');
+		stats.append("vectors_per_second=").append(String.format("%.1f", rowCount / seconds)).append('\n');
+		stats.append("latency_p50_us=").append(latency.percentile(0.5)).append('\n');
+		stats.append("latency_p99_us=").append(latency.percentile(0.99)).append('\n');
+		return stats.toString();
+	}
+
+	public void resetStats() {
+		requests.reset();
+		rows.reset();
+		errors.reset();
+		latency.reset();
+		batcher.resetCounters();
+		countersSince = System.nanoTime();
+	}
+
+	private static void send(HttpExchange exchange, int status, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(bytes);
+		}
+	}
+
+	public void stop() {
+		server.stop(0);
+		batcher.close();
+		handlers.shutdownNow();
+	}
+
+	// Required Arguments -
+	// index - 0 -> path/To/Model/File written by ModelFile.write()
+	// Optional Arguments, after required one -
+	// --port=8080
+	// --max-delay-us=500 -> longest wait of a request for others to batch with
+	// --max-batch=256 -> feature vectors per batch
+	// --threads=64 -> request handler threads, where virtual threads are not
+	// available (before Java 21)
+	// --max-body-bytes=8388608 -> longest request body, longer ones get 413
+	public static void main(String[] args) {
+		if (args.length < 1) {
+			LOGGER.error("Usage: ScoringServer path/To/Model/File [--port=] [--max-delay-us=] [--max-batch=] [--threads=] [--max-body-bytes=]");
+			System.exit(-1);
+		}
+		int port = DEFAULT_PORT;
+		long maxDelayMicros = DEFAULT_MAX_DELAY_MICROS;
+		int maxBatchRows = DEFAULT_MAX_BATCH_ROWS;
+		int handlerThreads = DEFAULT_HANDLER_THREADS;
+		int maxBodyBytes = DEFAULT_MAX_BODY_BYTES;
+		try {
+			for (int i = 1; i < args.length; i++) {
+				if (args[i].startsWith("--port=")) {
+					port = Integer.parseInt(args[i].substring("--port=".length()));
+				} else if (args[i].startsWith("--max-delay-us=")) {
+					maxDelayMicros = Long.parseLong(args[i].substring("--max-delay-us=".length()));
+				} else if (args[i].startsWith("--max-batch=")) {
+					maxBatchRows = Integer.parseInt(args[i].substring("--max-batch=".length()));
+				} else if (args[i].startsWith("--threads=")) {
+					handlerThreads = Integer.parseInt(args[i].substring("--threads=".length()));
+				} else if (args[i].startsWith("--max-body-bytes=")) {
+					maxBodyBytes = Integer.parseInt(args[i].substring("--max-body-bytes=".length()));
+				} else {
+					LOGGER.error("Unknown argument: {}", args[i]);
+					System.exit(-1);
+				}
+			}
+		} catch (NumberFormatException e) {
+			LOGGER.error("Invalid number in arguments", e);
+			System.exit(-1);
+		}
+
+		// Responses are written as headers and body. With Nagle's algorithm on, the
+		// body waits for the client's delayed ACK (about 40ms). The property is JVM
+		// wide and read once when the JDK server is first used, so it is set here,
+		// where this process only serves scoring, unless given on command line
+		if (null == System.getProperty("sun.net.httpserver.nodelay")) {
+			System.setProperty("sun.net.httpserver.nodelay", "true");
+		}
+		try {
+			ScoringServer server = start(MappedModel.open(args[0]), port, maxDelayMicros, maxBatchRows,
+					handlerThreads, maxBodyBytes);
+			Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+		} catch (IOException | IllegalArgumentException e) {
+			LOGGER.error("Could not start scoring server", e);
+			System.exit(-1);
+		}
+	}
+}
@@ -0,0 +1,137 @@
+package com.sinha.id3.util;
+
+/*
+ * Greedy split search by a single sorted sweep. Attribute values are sorted once
+ * together with their class codes. Thresholds (mid points between successive
+ * distinct values) are then visited in ascending order while left/right class
+ * counts are updated incrementally, giving O(n log n) per attribute with no
+ * allocation per candidate threshold
+ */
+public class SortedSplitFinder {
+
+	// Ranges at most this long are sorted by insertion sort
+	private static final int INSERTION_SORT_THRESHOLD = 32;
+
+	// Returns split with maximum Information Gain for one attribute. values and
+	// classCodes are parallel arrays for the instances considered and are sorted in
+	// place. On equal gains the larger split value wins, as with the map based
+	// search. Gain = SplitCandidate.NO_SPLIT when fewer than 2 distinct values
+	public static SplitCandidate findBestSplit(int attribute, double[] values, int[] classCodes, int classCount) {
+		return findBestSplit(attribute, values, classCodes, values.length, classCount);
+	}
+
+	// Split search over first size entries of values and classCodes, so scratch
+	// arrays larger than the node can be reused
+	public static SplitCandidate findBestSplit(int attribute, double[] values, int[] classCodes, int size,
+			int classCount) {
+		return findBestSplit(attribute, values, classCodes, size, classCount, 1);
+	}
+
+	// Split search considering only thresholds leaving at least minLeaf instances
+	// on each side
+	public static SplitCandidate findBestSplit(int attribute, double[] values, int[] classCodes, int size,
+			int classCount, int minLeaf) {
+		return findBestSplit(attribute, values, classCodes, size, classCount, minLeaf, Impurity.ENTROPY);
+	}
+
+	// Split search with gain measured as decrease of given impurity
+	public static SplitCandidate findBestSplit(int attribute, double[] values, int[] classCodes, int size,
+			int classCount, int minLeaf, ImpurityFunction impurity) {
+		sort(values, classCodes, 0, size - 1);
+
+		// All instances start on right side
+		int[] leftCounts = new int[classCount];
+		int[] rightCounts = new int[classCount];
+		for (int i = 0; i < size; i++) {
+			rightCounts[classCodes[i]]++;
+		}
+		double impurityBeforeSplit = impurity.impurity(rightCounts, size);
+
+		double bestGain = SplitCandidate.NO_SPLIT;
+		double bestSplit = Double.NaN;
+		int candidates = 0;
+		for (int i = 0; i < size - 1; i++) {
+
+			// Move instance i to left side
+			leftCounts[classCodes[i]]++;
+			rightCounts[classCodes[i]]--;
+			if (values[i] == values[i + 1] || i + 1 < minLeaf || size - i - 1 < minLeaf) {
+				continue;
+			}
+
+			// Instances 0..i have values <= splitVal, rest > splitVal
+			double splitVal = (values[i] + values[i + 1]) / 2;
+			candidates++;
+			double gain = EntropyUtil.calculateInfoGain(impurityBeforeSplit, impurity.impurity(leftCounts, i + 1),
+					impurity.impurity(rightCounts, size - i - 1), i + 1, size - i - 1);
+			if (bestGain == SplitCandidate.NO_SPLIT || gain >= bestGain) {
+				bestGain = gain;
+				bestSplit = splitVal;
+			}
+		}
+		return new SplitCandidate(attribute, bestSplit, bestGain, candidates);
+	}
+
+	// Sort values ascending, moving class codes along with them. Quick sort with
+	// median of three pivot, insertion sort for short ranges
+	static void sort(double[] values, int[] classCodes, int low, int high) {
+		while (high - low > INSERTION_SORT_THRESHOLD) {
+			int mid = (low + high) >>> 1;
+			if (values[mid] < values[low]) {
+				swap(values, classCodes, mid, low);
+			}
+			if (values[high] < values[low]) {
+				swap(values, classCodes, high, low);
+			}
+			if (values[high] < values[mid]) {
+				swap(values, classCodes, high, mid);
+			}
+			double pivot = values[mid];
+			int i = low;
+			int j = high;
+			while (i <= j) {
+				while (values[i] < pivot) {
+					i++;
+				}
+				while (values[j] > pivot) {
+					j--;
+				}
+				if (i <= j) {
+					swap(values, classCodes, i, j);
+					i++;
+					j--;
+				}
+			}
+
+			// Recurse into smaller part, loop on larger part to bound stack depth
+			if (j - low < high - i) {
+				sort(values, classCodes, low, j);
+				low = i;
+			} else {
+				sort(values, classCodes, i, high);
+				high = j;
+			}
+		}
+		for (int i = low + 1; i <= high; i++) {
+			double value = values[i];
+			int code = classCodes[i];
+			int j = i - 1;
+			while (j >= low && values[j] > value) {
+				values[j + 1] = values[j];
+				classCodes[j + 1] = classCodes[j];
+				j--;
+			}
+			values[j + 1] = value;
+			classCodes[j + 1] = code;
+		}
+	}
+
+	private static void swap(double[] values, int[] classCodes, int i, int j) {
+		double value = values[i];
+		values[i] = values[j];
+		values[j] = value;
+		int code = classCodes[i];
+		classCodes[i] = classCodes[j];
+		classCodes[j] = code;
+	}
+}
@@ -0,0 +1,57 @@
+package com.sinha.id3.util;
+
+// Result of split search on a single attribute of a columnar data set
+public class SplitCandidate {
+
+	// Gain returned when attribute has no possible split value
+	public static final double NO_SPLIT = -1d;
+
+	// Column index of attribute
+	private final int attribute;
+
+	// Split value. Values <= splitVal go left
+	private final double splitVal;
+
+	// Information Gain obtained by splitting at splitVal
+	private final double gain;
+
+	// Split values evaluated to find splitVal
+	private final int candidates;
+
+	public SplitCandidate(int attribute, double splitVal, double gain) {
+		this(attribute, splitVal, gain, 1);
+	}
+
+	public SplitCandidate(int attribute, double splitVal, double gain, int candidates) {
+		this.attribute = attribute;
+		this.splitVal = splitVal;
+		this.gain = gain;
+		this.candidates = candidates;
+	}
+
+	public int getAttribute() {
+		return attribute;
+	}
+
+	public double getSplitVal() {
+		return splitVal;
+	}
+
+	public double getGain() {
+		return gain;
+	}
+
+	public int getCandidates() {
+		return candidates;
+	}
+
+	public boolean isSplit() {
+		return gain != NO_SPLIT;
+	}
+
+	@Override
+	public String toString() {
+		return "SplitCandidate [attribute=" + attribute + ", splitVal=" + splitVal + ", gain=" + gain
+				+ ", candidates=" + candidates + "]";
+	}
+}
@@ -0,0 +1,37 @@
+package com.sinha.id3.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/*
+ * Flight Recorder event for split search of one attribute at one tree node
+ */
+@Name("com.sinha.id3.SplitSearch")
+@Label("Split Search")
+@Category({ "ID3", "Tree Build" })
+@Description("Best split search of one attribute over rows of a node")
+@StackTrace(false)
+public class SplitSearchEvent extends jdk.jfr.Event {
+
+	@Label("Depth")
+	int depth;
+
+	@Label("Rows")
+	int rows;
+
+	@Label("Attribute")
+	String attribute;
+
+	@Label("Candidates")
+	@Description("Split values evaluated")
+	int candidates;
+
+	@Label("Split Mode")
+	String mode;
+
+	@Label("Gain")
+	double gain;
+}
@@ -0,0 +1,129 @@
+package com.sinha.id3.util;
+
+/*
+ * Stopping rules and impurity function of a columnar tree build, shared by mid,
+ * greedy and binned split search. Immutable; withX() returns a copy with one
+ * setting changed, so one config can be reused across folds and forest trees.
+ *
+ * A node that may not be split any further is made a leaf with the majority
+ * class of its rows. The root is always split when a split exists, so a build
+ * stopped by any limit still returns a valid tree, at worst a single split.
+ * Build time is bounded by maxBuildMillis up to one split search of the node
+ * running when time runs out
+ */
+public class TreeBuildConfig {
+
+	// No limits beyond running out of rows, classes or split values
+	public static final TreeBuildConfig DEFAULT = new TreeBuildConfig(Integer.MAX_VALUE, 2, 1, 0d, Integer.MAX_VALUE,
+			0L, Impurity.ENTROPY);
+
+	// Depth of deepest split node, root has depth 1. Children of a node at
+	// maxDepth are leaves
+	private final int maxDepth;
+
+	// Nodes with fewer rows than this are leaves
+	private final int minSamplesSplit;
+
+	// Splits leaving fewer rows than this on either side are not considered
+	private final int minSamplesLeaf;
+
+	// Splits with lower Information Gain than this are not made. In units of
+	// impurity
+	private final double minGain;
+
+	// Split nodes created per tree. Once reached, remaining nodes are leaves.
+	// Which subtrees are cut depends on scheduling when built in parallel
+	private final int maxNodes;
+
+	// Wall clock time per tree build in ms, 0 for no limit. Once passed, nodes
+	// not yet split are leaves
+	private final long maxBuildMillis;
+
+	// Impurity whose decrease is the gain of a split
+	private final ImpurityFunction impurity;
+
+	private TreeBuildConfig(int maxDepth, int minSamplesSplit, int minSamplesLeaf, double minGain, int maxNodes,
+			long maxBuildMillis, ImpurityFunction impurity) {
+		if (maxDepth < 1 || minSamplesSplit < 2 || minSamplesLeaf < 1 || minGain < 0 || maxNodes < 1
+				|| maxBuildMillis < 0 || null == impurity) {
+			throw new IllegalArgumentException("Invalid tree build limits");
+		}
+		this.maxDepth = maxDepth;
+		this.minSamplesSplit = minSamplesSplit;
+		this.minSamplesLeaf = minSamplesLeaf;
+		this.minGain = minGain;
+		this.maxNodes = maxNodes;
+		this.maxBuildMillis = maxBuildMillis;
+		this.impurity = impurity;
+	}
+
+	public TreeBuildConfig withMaxDepth(int maxDepth) {
+		return new TreeBuildConfig(maxDepth, minSamplesSplit, minSamplesLeaf, minGain, maxNodes, maxBuildMillis,
+				impurity);
+	}
+
+	public TreeBuildConfig withMinSamplesSplit(int minSamplesSplit) {
+		return new TreeBuildConfig(maxDepth, minSamplesSplit, minSamplesLeaf, minGain, maxNodes, maxBuildMillis,
+				impurity);
+	}
+
+	public TreeBuildConfig withMinSamplesLeaf(int minSamplesLeaf) {
+		return new TreeBuildConfig(maxDepth, minSamplesSplit, minSamplesLeaf, minGain, maxNodes, maxBuildMillis,
+				impurity);
+	}
+
+	public TreeBuildConfig withMinGain(double minGain) {
+		return new TreeBuildConfig(maxDepth, minSamplesSplit, minSamplesLeaf, minGain, maxNodes, maxBuildMillis,
+				impurity);
+	}
+
+	public TreeBuildConfig withMaxNodes(int maxNodes) {
+		return new TreeBuildConfig(maxDepth, minSamplesSplit, minSamplesLeaf, minGain, maxNodes, maxBuildMillis,
+				impurity);
+	}
+
+	public TreeBuildConfig withMaxBuildMillis(long maxBuildMillis) {
+		return new TreeBuildConfig(maxDepth, minSamplesSplit, minSamplesLeaf, minGain, maxNodes, maxBuildMillis,
+				impurity);
+	}
+
+	public TreeBuildConfig withImpurity(ImpurityFunction impurity) {
+		return new TreeBuildConfig(maxDepth, minSamplesSplit, minSamplesLeaf, minGain, maxNodes, maxBuildMillis,
+				impurity);
+	}
+
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	public int getMinSamplesSplit() {
+		return minSamplesSplit;
+	}
+
+	public int getMinSamplesLeaf() {
+		return minSamplesLeaf;
+	}
+
+	public double getMinGain() {
+		return minGain;
+	}
+
+	public int getMaxNodes() {
+		return maxNodes;
+	}
+
+	public long getMaxBuildMillis() {
+		return maxBuildMillis;
+	}
+
+	public ImpurityFunction getImpurity() {
+		return impurity;
+	}
+
+	@Override
+	public String toString() {
+		return "TreeBuildConfig [maxDepth=" + maxDepth + ", minSamplesSplit=" + minSamplesSplit + ", minSamplesLeaf="
+				+ minSamplesLeaf + ", minGain=" + minGain + ", maxNodes=" + maxNodes + ", maxBuildMillis="
+				+ maxBuildMillis + ", impurity=" + impurity + "]";
+	}
+}
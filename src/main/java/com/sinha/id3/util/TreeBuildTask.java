@@ -0,0 +1,519 @@
+package com.sinha.id3.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/*
+ * Fork/join task building the subtree for given rows of a columnar data set.
+ * Split search forks one task per attribute and the left subtree is forked while
+ * the right one is computed by the current worker. Nodes with fewer rows than
+ * SEQUENTIAL_THRESHOLD are built entirely by the current worker.
+ *
+ * Class counts, and for binned search the class histograms, are counted only
+ * over the smaller child of a split. The larger child gets parent statistics
+ * minus those of its sibling. Mid split search gathers its statistics for all
+ * attributes in fused passes over rows (NodeStatistics), which also give class
+ * counts of both children.
+ *
+ * Rows of a node are a range of one row index array shared by the whole tree.
+ * A split partitions the range in place, left rows first, so children get
+ * adjacent sub ranges and building allocates no row arrays below the root.
+ *
+ * Growth is limited by a TreeBuildConfig. Node count and deadline are tracked
+ * per tree in a Budget shared by all tasks of the tree.
+ *
+ * Work on each node, split search of each attribute and partitioning are
+ * recorded as Flight Recorder events (NodeBuildEvent, SplitSearchEvent,
+ * PartitionEvent) and summed in MetricsRegistry counters under tree.*
+ */
+public class TreeBuildTask extends RecursiveTask<Node> {
+
+	private static final long serialVersionUID = 6160358014826339208L;
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(TreeBuildTask.class);
+
+	// Nodes with fewer rows than this are not split into parallel tasks
+	public static final int SEQUENTIAL_THRESHOLD = 2048;
+
+	private static final LongAdder BUILDS = MetricsRegistry.counter("tree.build.count");
+	private static final LongAdder BUILD_NANOS = MetricsRegistry.counter("tree.build.nanos");
+	private static final LongAdder NODE_NANOS = MetricsRegistry.counter("tree.node.nanos");
+	private static final LongAdder SPLIT_SEARCHES = MetricsRegistry.counter("tree.split_search.count");
+	private static final LongAdder SPLIT_CANDIDATES = MetricsRegistry.counter("tree.split_search.candidates");
+	private static final LongAdder SPLIT_SEARCH_NANOS = MetricsRegistry.counter("tree.split_search.nanos");
+	private static final LongAdder PARTITIONS = MetricsRegistry.counter("tree.partition.count");
+	private static final LongAdder PARTITION_ROWS = MetricsRegistry.counter("tree.partition.rows");
+	private static final LongAdder PARTITION_NANOS = MetricsRegistry.counter("tree.partition.nanos");
+
+	// How work on a node ended. Counted under tree.node.<outcome>
+	private enum Outcome {
+		// Node split, children built as subtrees
+		SPLIT,
+		// Node split, both children made leaves
+		LEAF_SPLIT,
+		// Parent side made a leaf: single row, one class only, fewer rows than
+		// minSamplesSplit, out of time, no split value, split below minGain or
+		// minSamplesLeaf, out of node budget
+		SINGLE_ROW, PURE, TOO_SMALL, EXPIRED, NO_SPLIT, WEAK_SPLIT, OVER_BUDGET;
+
+		private final LongAdder counter = MetricsRegistry.counter("tree.node." + name().toLowerCase());
+	}
+
+	// How split value of an attribute is chosen
+	public enum SplitMode {
+		// Mid point of minimum and maximum value
+		MID,
+		// Exact greedy search over all distinct values
+		GREEDY,
+		// Greedy search over bin boundaries of BinnedDataset
+		BINNED
+	}
+
+	private final ColumnarDataset data;
+
+	// Only used for SplitMode.BINNED
+	private final BinnedDataset binned;
+
+	private final SplitMode mode;
+
+	// Column indices of attributes considered for splitting
+	private final int[] attributes;
+
+	// Rows available to this node, rows[from..to) of array shared by tree
+	private final int[] rows;
+	private final int from;
+	private final int to;
+
+	// Parent node and direction of this node from parent. Parent is classified
+	// instead when no node is created
+	private final Node prevNode;
+	private final String direction;
+
+	private final TreeBuildConfig config;
+	private final Budget budget;
+	private final int curDepth;
+
+	// Class counts of rows, null when not handed down by parent
+	private final int[] classCounts;
+
+	// SplitMode.BINNED only. Class histogram of rows per attribute, indexed as
+	// attributes. null when not handed down by parent
+	private final int[][] histograms;
+
+	// Limits of one tree build shared by all its tasks
+	private static final class Budget {
+
+		// System.nanoTime() after which no more nodes are split. Only used when
+		// timed
+		private final boolean timed;
+		private final long deadline;
+
+		// Split nodes created so far
+		private final AtomicInteger nodes = new AtomicInteger();
+
+		// Limit that first stopped growth, null while none has
+		private volatile String stoppedBy;
+
+		private Budget(TreeBuildConfig config) {
+			this.timed = config.getMaxBuildMillis() > 0;
+			this.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getMaxBuildMillis());
+		}
+
+		private boolean expired() {
+			return timed && System.nanoTime() - deadline > 0;
+		}
+
+		private void stop(String limit) {
+			if (null == stoppedBy) {
+				stoppedBy = limit;
+			}
+		}
+	}
+
+	// Task for given rows. Rows are copied once, so caller's array is not
+	// reordered
+	public TreeBuildTask(ColumnarDataset data, BinnedDataset binned, SplitMode mode, int[] attributes, int[] rows,
+			Node prevNode, String direction, int maxDepth, int curDepth) {
+		this(data, binned, mode, attributes, rows, prevNode, direction,
+				TreeBuildConfig.DEFAULT.withMaxDepth(maxDepth), curDepth);
+	}
+
+	// Task for given rows limited by config. Budget of node count and build time
+	// starts now
+	public TreeBuildTask(ColumnarDataset data, BinnedDataset binned, SplitMode mode, int[] attributes, int[] rows,
+			Node prevNode, String direction, TreeBuildConfig config, int curDepth) {
+		this(data, binned, mode, attributes, rows.clone(), 0, rows.length, prevNode, direction, config,
+				new Budget(config), curDepth, null, null);
+	}
+
+	private TreeBuildTask(ColumnarDataset data, BinnedDataset binned, SplitMode mode, int[] attributes, int[] rows,
+			int from, int to, Node prevNode, String direction, TreeBuildConfig config, Budget budget, int curDepth,
+			int[] classCounts, int[][] histograms) {
+		this.data = data;
+		this.binned = binned;
+		this.mode = mode;
+		this.attributes = attributes;
+		this.rows = rows;
+		this.from = from;
+		this.to = to;
+		this.prevNode = prevNode;
+		this.direction = direction;
+		this.config = config;
+		this.budget = budget;
+		this.curDepth = curDepth;
+		this.classCounts = classCounts;
+		this.histograms = histograms;
+	}
+
+	// Task for root node of tree
+	public static TreeBuildTask root(ColumnarDataset data, BinnedDataset binned, SplitMode mode, int[] attributes,
+			int[] rows, int maxDepth) {
+		return new TreeBuildTask(data, binned, mode, attributes, rows, null, null, maxDepth, 1);
+	}
+
+	// Task for root node of tree limited by config
+	public static TreeBuildTask root(ColumnarDataset data, BinnedDataset binned, SplitMode mode, int[] attributes,
+			int[] rows, TreeBuildConfig config) {
+		return new TreeBuildTask(data, binned, mode, attributes, rows, null, null, config, 1);
+	}
+
+	@Override
+	protected Node compute() {
+		if (null != prevNode) {
+			return build();
+		}
+		long start = System.nanoTime();
+		Node node = build();
+		BUILDS.increment();
+		BUILD_NANOS.add(System.nanoTime() - start);
+		if (null != budget.stoppedBy) {
+			LOGGER.info("Tree build stopped by {}, {} split nodes", budget.stoppedBy,
+					Math.min(budget.nodes.get(), config.getMaxNodes()));
+		}
+		return node;
+	}
+
+	private Node build() {
+		NodeBuildEvent event = new NodeBuildEvent();
+		event.begin();
+		long start = System.nanoTime();
+
+		// when generating child node, considered leaf node if attributes size = 1 or
+		// depth = maxDepth
+		boolean isLeafNode = attributes.length == 1 || curDepth == config.getMaxDepth();
+
+		// Only 1 instance left. Classify parent using its class value
+		if (to - from == 1) {
+			classifyParent(data.classCode(rows[from]));
+			recordNode(event, start, Outcome.SINGLE_ROW, 0, null);
+			return null;
+		}
+
+		// Class counts are handed down by parent. Root counts them, for mid split
+		// search in the pass finding attribute ranges
+		NodeStatistics statistics = null;
+		int[] classCounts = this.classCounts;
+		if (null == classCounts && mode == SplitMode.MID) {
+			statistics = NodeStatistics.forThread(attributes.length, data.classCount());
+			statistics.scan(data, rows, from, to, attributes, true);
+			classCounts = statistics.getClassCounts();
+		} else if (null == classCounts) {
+			classCounts = Utility.classCounts(data, rows, from, to);
+		}
+
+		// Only 1 possible class value present. Assign it to parent node
+		if (Utility.presentClasses(classCounts) == 1) {
+			if (null == prevNode) {
+				LOGGER.error("No classification needed");
+				System.exit(-1);
+			}
+			classifyParent(Utility.majorityClass(classCounts));
+			recordNode(event, start, Outcome.PURE, 0, null);
+			return null;
+		}
+
+		// Node too small or out of time. Root is still split, with its children made
+		// leaves, so a tree is always returned
+		boolean expired = budget.expired();
+		if (expired) {
+			budget.stop("maxBuildMillis");
+		}
+		if (expired || to - from < config.getMinSamplesSplit()) {
+			if (null != prevNode) {
+				classifyParent(Utility.majorityClass(classCounts));
+				recordNode(event, start, expired ? Outcome.EXPIRED : Outcome.TOO_SMALL, 0, null);
+				return null;
+			}
+			isLeafNode = true;
+		}
+
+		// Determine best split for each attribute. Attribute with maximum gain chosen,
+		// on equal gains later attribute wins
+		boolean parallel = to - from >= SEQUENTIAL_THRESHOLD;
+		int[][] nodeHistograms = mode != SplitMode.BINNED ? null
+				: null != histograms ? histograms : buildHistograms(from, to, parallel);
+		List<SplitCandidate> searched;
+		if (mode == SplitMode.MID) {
+			if (null == statistics) {
+				statistics = NodeStatistics.forThread(attributes.length, data.classCount());
+			}
+			searched = midSplits(statistics, null == this.classCounts, classCounts);
+		} else {
+			List<Callable<SplitCandidate>> callables = new ArrayList<>();
+			for (int i = 0; i < attributes.length; i++) {
+				callables.add(recorded(mode == SplitMode.BINNED
+						? new BinnedGainCalculator(binned, to - from, attributes[i], nodeHistograms[i], classCounts,
+								config.getMinSamplesLeaf(), config.getImpurity())
+						: new ColumnGainCalculator(data, rows, from, to, attributes[i], config.getMinSamplesLeaf(),
+								config.getImpurity())));
+			}
+			searched = parallel ? BuildPool.invokeAll(getPool(), callables) : BuildPool.callAll(callables);
+		}
+		SplitCandidate best = null;
+		int bestIndex = -1;
+		int candidates = 0;
+		for (int i = 0; i < searched.size(); i++) {
+			SplitCandidate candidate = searched.get(i);
+			candidates += candidate.getCandidates();
+			if (null == best || candidate.getGain() >= best.getGain()) {
+				best = candidate;
+				bestIndex = i;
+			}
+		}
+		LOGGER.debug("Split Variable: {}", best);
+
+		// Class counts of rows going left, known without counting after mid split
+		// search. Copied out before any fork reuses the statistics buffers
+		int[] leftCounts = null != statistics && null != best ? statistics.getLeftCounts(bestIndex) : null;
+		if (null == best || !best.isSplit()) {
+
+			// No attribute can be split further (all values equal, or no split leaves
+			// minSamplesLeaf rows on both sides). Classify parent using majority class of
+			// this node
+			if (null == prevNode) {
+				LOGGER.error("No split possible on input data set");
+				System.exit(-1);
+			}
+			classifyParent(Utility.majorityClass(classCounts));
+			recordNode(event, start, Outcome.NO_SPLIT, candidates, best);
+			return null;
+		}
+
+		// Prepare Node and split rows on split attribute and split value
+		Node node = NodeUtility.prepareNode(data, best.getAttribute(), best.getSplitVal());
+		int mid = partition(best);
+		LOGGER.debug("Left Input Set Count: {}", mid - from);
+		LOGGER.debug("Right Input Set Count: {}", to - mid);
+
+		// Split gaining too little, or mid split leaving too few rows on a side, is
+		// not made. Neither is one beyond node budget. Root is split regardless, its
+		// children made leaves. Gain compared only for positive minGain as gains of
+		// useless splits may be rounded below zero. Splits leaving a side empty are
+		// classified below as before
+		int minLeaf = config.getMinSamplesLeaf();
+		boolean weak = (config.getMinGain() > 0 && best.getGain() < config.getMinGain())
+				|| (mid > from && mid - from < minLeaf) || (mid < to && to - mid < minLeaf);
+		// Only splits made count against node budget
+		boolean withinBudget = weak || budget.nodes.incrementAndGet() <= config.getMaxNodes();
+		if (!withinBudget) {
+			budget.stop("maxNodes");
+		}
+		if (weak || !withinBudget) {
+			if (null != prevNode) {
+				classifyParent(Utility.majorityClass(classCounts));
+				recordNode(event, start, weak ? Outcome.WEAK_SPLIT : Outcome.OVER_BUDGET, candidates, best);
+				return null;
+			}
+			isLeafNode = true;
+		}
+
+		// Split leaving one side empty makes no progress (attribute values all equal).
+		// Such node is classified instead of being split further
+		if (!isLeafNode && mid > from && mid < to) {
+
+			// Statistics counted only over smaller child. Those of larger child are parent
+			// statistics minus smaller child, derived in place as parent no longer needs
+			// them
+			boolean leftSmaller = mid - from <= to - mid;
+			int smallerFrom = leftSmaller ? from : mid;
+			int smallerTo = leftSmaller ? mid : to;
+			int[][] smallerHistograms = null;
+			int[][] largerHistograms = null;
+			if (mode == SplitMode.BINNED) {
+				smallerHistograms = buildHistograms(smallerFrom, smallerTo,
+						smallerTo - smallerFrom >= SEQUENTIAL_THRESHOLD);
+				largerHistograms = nodeHistograms;
+				for (int i = 0; i < attributes.length; i++) {
+					for (int j = 0; j < largerHistograms[i].length; j++) {
+						largerHistograms[i][j] -= smallerHistograms[i][j];
+					}
+				}
+			}
+
+			// Class counts of smaller child come from split search or its histograms
+			// when at hand, rows are counted otherwise
+			int[] smallerCounts;
+			if (null != leftCounts) {
+				smallerCounts = leftSmaller ? leftCounts : difference(classCounts, leftCounts);
+			} else if (mode == SplitMode.BINNED) {
+				smallerCounts = BinnedGainCalculator.classCounts(smallerHistograms[0], classCounts.length);
+			} else {
+				smallerCounts = Utility.classCounts(data, rows, smallerFrom, smallerTo);
+			}
+			int[] largerCounts = difference(classCounts, smallerCounts);
+			// Majority class of each side, used when a depth prefix of the tree ends at
+			// this node
+			node.setLeftMajorityCode(Utility.majorityClass(leftSmaller ? smallerCounts : largerCounts));
+			node.setRightMajorityCode(Utility.majorityClass(leftSmaller ? largerCounts : smallerCounts));
+			TreeBuildTask leftTask = child(from, mid, node, Constants.DIRECTION_LEFT,
+					leftSmaller ? smallerCounts : largerCounts, leftSmaller ? smallerHistograms : largerHistograms);
+			TreeBuildTask rightTask = child(mid, to, node, Constants.DIRECTION_RIGHT,
+					leftSmaller ? largerCounts : smallerCounts, leftSmaller ? largerHistograms : smallerHistograms);
+			recordNode(event, start, Outcome.SPLIT, candidates, best);
+			if (parallel) {
+				leftTask.fork();
+				node.setRightNode(rightTask.compute());
+				node.setLeftNode(leftTask.join());
+			} else {
+				node.setLeftNode(leftTask.compute());
+				node.setRightNode(rightTask.compute());
+			}
+		} else {
+			LOGGER.debug("Classifying Node");
+			if (null == leftCounts) {
+				leftCounts = mid - from <= to - mid ? Utility.classCounts(data, rows, from, mid)
+						: difference(classCounts, Utility.classCounts(data, rows, mid, to));
+			}
+			NodeUtility.performClassification(node, leftCounts, difference(classCounts, leftCounts), data);
+			recordNode(event, start, Outcome.LEAF_SPLIT, candidates, best);
+		}
+		return node;
+	}
+
+	// Count and commit work on this node, started at start. Subtrees not included
+	private void recordNode(NodeBuildEvent event, long start, Outcome outcome, int candidates,
+			SplitCandidate best) {
+		NODE_NANOS.add(System.nanoTime() - start);
+		outcome.counter.increment();
+		if (event.shouldCommit()) {
+			event.depth = curDepth;
+			event.rows = to - from;
+			event.attributes = attributes.length;
+			event.candidates = candidates;
+			event.mode = mode.name();
+			if (null != best && best.isSplit()) {
+				event.splitAttribute = data.getAttribute(best.getAttribute());
+				event.gain = best.getGain();
+			}
+			event.outcome = outcome.name();
+			event.commit();
+		}
+	}
+
+	// Split search of one attribute, recorded as SplitSearchEvent and counted
+	private Callable<SplitCandidate> recorded(Callable<SplitCandidate> search) {
+		return () -> {
+			SplitSearchEvent event = new SplitSearchEvent();
+			event.begin();
+			long start = System.nanoTime();
+			SplitCandidate candidate = search.call();
+			SPLIT_SEARCH_NANOS.add(System.nanoTime() - start);
+			SPLIT_SEARCHES.increment();
+			SPLIT_CANDIDATES.add(candidate.getCandidates());
+			if (event.shouldCommit()) {
+				event.depth = curDepth;
+				event.rows = to - from;
+				event.attribute = data.getAttribute(candidate.getAttribute());
+				event.candidates = candidate.getCandidates();
+				event.mode = mode.name();
+				event.gain = candidate.getGain();
+				event.commit();
+			}
+			return candidate;
+		};
+	}
+
+	// Partition rows of node on split in place, recorded as PartitionEvent and
+	// counted. Returns start of right rows
+	private int partition(SplitCandidate split) {
+		PartitionEvent event = new PartitionEvent();
+		event.begin();
+		long start = System.nanoTime();
+		int mid = Utility.partitionInPlace(data, rows, from, to, split.getAttribute(), split.getSplitVal());
+		PARTITION_NANOS.add(System.nanoTime() - start);
+		PARTITIONS.increment();
+		PARTITION_ROWS.add(to - from);
+		if (event.shouldCommit()) {
+			event.depth = curDepth;
+			event.rows = to - from;
+			event.leftRows = mid - from;
+			event.commit();
+		}
+		return mid;
+	}
+
+	// Task for rows[childFrom..childTo) of shared row array
+	private TreeBuildTask child(int childFrom, int childTo, Node node, String childDirection, int[] childCounts,
+			int[][] childHistograms) {
+		return new TreeBuildTask(data, binned, mode, attributes, rows, childFrom, childTo, node, childDirection,
+				config, budget, curDepth + 1, childCounts, childHistograms);
+	}
+
+	// Class histogram of each attribute over rows[histogramFrom..histogramTo), one
+	// task per attribute when parallel, else all in one pass over rows
+	private int[][] buildHistograms(int histogramFrom, int histogramTo, boolean parallel) {
+		if (!parallel) {
+			return BinnedGainCalculator.histograms(binned, rows, histogramFrom, histogramTo, attributes);
+		}
+		List<Callable<int[]>> callables = new ArrayList<>();
+		for (int attribute : attributes) {
+			callables.add(() -> BinnedGainCalculator.histogram(binned, rows, histogramFrom, histogramTo, attribute));
+		}
+		return BuildPool.invokeAll(getPool(), callables).toArray(new int[0][]);
+	}
+
+	// Mid split search of all attributes in fused passes over rows, the first
+	// skipped when ranges were found along with root class counts. Counted as one
+	// split search per attribute, but not recorded as SplitSearchEvents as
+	// attributes are searched together
+	private List<SplitCandidate> midSplits(NodeStatistics statistics, boolean scanned, int[] classCounts) {
+		long start = System.nanoTime();
+		if (!scanned) {
+			statistics.scan(data, rows, from, to, attributes, false);
+		}
+		List<SplitCandidate> searched = Arrays
+				.asList(statistics.midSplits(data, rows, from, to, attributes, classCounts, config.getImpurity()));
+		SPLIT_SEARCH_NANOS.add(System.nanoTime() - start);
+		SPLIT_SEARCHES.add(attributes.length);
+		SPLIT_CANDIDATES.add(attributes.length);
+		return searched;
+	}
+
+	// Class counts of all rows less those of some of them
+	private static int[] difference(int[] counts, int[] subtracted) {
+		int[] difference = new int[counts.length];
+		for (int code = 0; code < counts.length; code++) {
+			difference[code] = counts[code] - subtracted[code];
+		}
+		return difference;
+	}
+
+	// Assign class code to parent node according to direction. Left and right
+	// children write different fields of parent
+	private void classifyParent(int classCode) {
+		if (Constants.DIRECTION_LEFT.equals(direction)) {
+			prevNode.setLeftClassification(classCode, data.classLabel(classCode));
+		} else {
+			prevNode.setRightClassification(classCode, data.classLabel(classCode));
+		}
+	}
+}
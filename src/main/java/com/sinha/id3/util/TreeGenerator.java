@@ -2,13 +2,20 @@ package com.sinha.id3.util;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
 
-// Used for forest evaluation. Allows for parallel generation of trees
+// Used for forest evaluation. Allows for parallel generation of trees. Trees
+// built on columnar data recorded as ForestTreeEvent and counted under forest.*
 public class TreeGenerator implements Callable<Node> {
 
+	private static final LongAdder TREES = MetricsRegistry.counter("forest.tree.count");
+	private static final LongAdder TREE_NANOS = MetricsRegistry.counter("forest.tree.nanos");
+
 	public TreeGenerator(List<String> attributes, List<InputSet> inputList, int attributeSize,
 			ExecutorService executor) {
 		this.attributes = attributes;
@@ -17,14 +24,57 @@ public class TreeGenerator implements Callable<Node> {
 		this.executor = executor;
 	}
 
+	// Generator building tree on specified rows of columnar data set. Attributes
+	// chosen with random generator seeded by seed, so same seed gives same tree
+	public TreeGenerator(List<String> attributes, ColumnarDataset dataset, int[] rows, int attributeSize,
+			long seed, ForkJoinPool pool) {
+		this.attributes = attributes;
+		this.dataset = dataset;
+		this.rows = rows;
+		this.attributeSize = attributeSize;
+		this.random = new Random(seed);
+		this.pool = pool;
+	}
+
+	// Generator building tree on specified rows of columnar data set with given
+	// attributes, in given order, eg. chosen by a ForestCoordinator
+	public TreeGenerator(ColumnarDataset dataset, int[] rows, List<String> chosenAttributes, ForkJoinPool pool) {
+		this.dataset = dataset;
+		this.rows = rows;
+		this.chosenAttributes = chosenAttributes;
+		this.pool = pool;
+	}
+
 	private int attributeSize;
 	private List<String> attributes;
 	private List<InputSet> inputList;
+	private ColumnarDataset dataset;
+	private int[] rows;
 	private List<String> chosenAttributes;
 	private ExecutorService executor;
+	private ForkJoinPool pool;
+	private Random random;
 
 	@Override
 	public Node call() throws Exception {
+		if (null != dataset) {
+			ForestTreeEvent event = new ForestTreeEvent();
+			event.begin();
+			long start = System.nanoTime();
+			if (null != attributes) {
+				chooseAttributes();
+			}
+			Node rootNode = TreeUtility.generateTreeGreedySplit(chosenAttributes, dataset, rows, pool);
+			TREE_NANOS.add(System.nanoTime() - start);
+			TREES.increment();
+			if (event.shouldCommit()) {
+				event.rows = rows.length;
+				event.attributes = String.join(",", chosenAttributes);
+				event.splitNodes = NodeUtility.splitCount(rootNode);
+				event.commit();
+			}
+			return rootNode;
+		}
 		chooseAttributes();
 		Node rootNode = TreeUtility.generateTreeGreedySplit(chosenAttributes, inputList, null, null, executor);
 		return rootNode;
@@ -32,16 +82,24 @@ public class TreeGenerator implements Callable<Node> {
 
 	// Randomly choose attributes from original list to use for tree generation.
 	private void chooseAttributes() {
-		chosenAttributes = new ArrayList<>();
+		chosenAttributes = chooseAttributes(attributes, attributeSize,
+				null != random ? random : ThreadLocalRandom.current());
+	}
+
+	// Choose attributeSize distinct attributes at random, in order drawn. Same
+	// random sequence gives same attributes in same order
+	public static List<String> chooseAttributes(List<String> attributes, int attributeSize, Random rnd) {
+		List<String> chosenAttributes = new ArrayList<>();
 		int i = 0;
 		while (i < attributeSize) {
-			String attr = attributes.get(ThreadLocalRandom.current().nextInt(attributes.size()));
+			String attr = attributes.get(rnd.nextInt(attributes.size()));
 			while (chosenAttributes.contains(attr)) {
-				attr = attributes.get(ThreadLocalRandom.current().nextInt(attributes.size()));
+				attr = attributes.get(rnd.nextInt(attributes.size()));
 			}
 			chosenAttributes.add(attr);
 			i++;
 		}
+		return chosenAttributes;
 	}
 
 }
@@ -8,6 +8,7 @@ import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
@@ -108,7 +109,7 @@ public class TreeUtility {
 		double splitVal = Double.valueOf(gainResults.get(maxGain).split(":")[1]);
 
 		// Prepare Node by populating values
-		Node node = NodeUtility.prepareNode(splitAttr, splitVal, inputList, attributes);
+		Node node = NodeUtility.prepareNode(splitAttr, splitVal);
 
 		// Obtain input set for left child by splitting data set on split attribute and
 		// split value. Values <= splitValue
@@ -152,6 +153,13 @@ public class TreeUtility {
 	// Recursively call same method to generate left and right child nodes
 	public static Node generateTreeGreedySplit(List<String> attributes, List<InputSet> inputList, Node prevNode,
 			String direction, ExecutorService executor) {
+		return generateTreeGreedySplit(attributes, inputList, prevNode, direction, executor, Impurity.ENTROPY);
+	}
+
+	// Generate tree by greedy search for split value, with information gain
+	// measured as decrease of given impurity
+	public static Node generateTreeGreedySplit(List<String> attributes, List<InputSet> inputList, Node prevNode,
+			String direction, ExecutorService executor, ImpurityFunction impurity) {
 
 		// Partition input data set into attribute:(class:List<values>) pairs.
 		// allows for easier manipulation of data set
@@ -196,7 +204,7 @@ public class TreeUtility {
 
 		// Prepare callables to be used for determining split attribute and split value
 		// in parallel
-		List<Callable<Map<Double, String>>> callables = prepareCallables(partitionedMap);
+		List<Callable<Map<Double, String>>> callables = prepareCallables(partitionedMap, impurity);
 
 		// Submit callables to ExecutorService and obtain results
 		Map<Double, String> gainResults = performTask(callables, executor);
@@ -228,7 +236,7 @@ public class TreeUtility {
 		double splitVal = Double.valueOf(gainResults.get(maxGain).split(":")[1]);
 
 		// Prepare node by populating values
-		Node node = NodeUtility.prepareNode(splitAttr, splitVal, inputList, attributes);
+		Node node = NodeUtility.prepareNode(splitAttr, splitVal);
 
 		// Obtain input set for left child by splitting data set on split attribute and
 		// split value. Values <= splitValue
@@ -250,10 +258,10 @@ public class TreeUtility {
 			List<String> leftAttributes = new ArrayList<>(attributes);
 			List<String> rightAttributes = new ArrayList<>(attributes);
 			LOGGER.debug("Attributes Size: {}", attributes.size());
-			node.setLeftNode(
-					generateTreeGreedySplit(leftAttributes, leftInputSet, node, Constants.DIRECTION_LEFT, executor));
-			node.setRightNode(
-					generateTreeGreedySplit(rightAttributes, rightInputSet, node, Constants.DIRECTION_RIGHT, executor));
+			node.setLeftNode(generateTreeGreedySplit(leftAttributes, leftInputSet, node, Constants.DIRECTION_LEFT,
+					executor, impurity));
+			node.setRightNode(generateTreeGreedySplit(rightAttributes, rightInputSet, node,
+					Constants.DIRECTION_RIGHT, executor, impurity));
 		} else {
 
 			// Current Node is leaf node. perform classification on left and right children
@@ -292,15 +300,82 @@ public class TreeUtility {
 	// Prepare callables to be used for determining InformationGain for attributes
 	// in greedy split search
 	private static List<Callable<Map<Double, String>>> prepareCallables(
-			Map<String, Map<Number, List<Number>>> partitionedMap) {
+			Map<String, Map<Number, List<Number>>> partitionedMap, ImpurityFunction impurity) {
 		List<Callable<Map<Double, String>>> callables = new ArrayList<>();
 		for (Map.Entry<String, Map<Number, List<Number>>> entry : partitionedMap.entrySet()) {
 
 			// Possible Class Values and attribute values for each attribute submitted to a
 			// callable
-			InformationGainCalculator cal = new InformationGainCalculator(entry.getKey(), entry.getValue());
+			InformationGainCalculator cal = new InformationGainCalculator(entry.getKey(), entry.getValue(),
+					impurity);
 			callables.add(cal);
 		}
 		return callables;
 	}
+
+	// Generates mid split tree on all instances of columnar data set
+	public static Node generateTreeMidSplit(List<String> attributes, ColumnarDataset data, int maxDepth,
+			ForkJoinPool pool) {
+		return generateTreeMidSplit(attributes, data, Utility.allRows(data.size()), maxDepth, pool);
+	}
+
+	// Generates mid split tree on specified rows of columnar data set. Attribute
+	// names resolved to column indices once before construction. Built as fork/join
+	// tasks in pool
+	public static Node generateTreeMidSplit(List<String> attributes, ColumnarDataset data, int[] rows, int maxDepth,
+			ForkJoinPool pool) {
+		return generateTreeMidSplit(attributes, data, rows, TreeBuildConfig.DEFAULT.withMaxDepth(maxDepth), pool);
+	}
+
+	// Generates mid split tree on specified rows of columnar data set, grown
+	// within limits of config
+	public static Node generateTreeMidSplit(List<String> attributes, ColumnarDataset data, int[] rows,
+			TreeBuildConfig config, ForkJoinPool pool) {
+		return BuildPool.invoke(pool, TreeBuildTask.root(data, null, TreeBuildTask.SplitMode.MID,
+				data.indicesOf(attributes), rows, config));
+	}
+
+	// Generates greedy split tree on all instances of columnar data set
+	public static Node generateTreeGreedySplit(List<String> attributes, ColumnarDataset data, ForkJoinPool pool) {
+		return generateTreeGreedySplit(attributes, data, Utility.allRows(data.size()), pool);
+	}
+
+	// Generates greedy split tree on specified rows of columnar data set. Attribute
+	// names resolved to column indices once before construction. Built as fork/join
+	// tasks in pool
+	public static Node generateTreeGreedySplit(List<String> attributes, ColumnarDataset data, int[] rows,
+			ForkJoinPool pool) {
+		return generateTreeGreedySplit(attributes, data, rows, TreeBuildConfig.DEFAULT, pool);
+	}
+
+	// Generates greedy split tree on specified rows of columnar data set, grown
+	// within limits of config. A build running out of time or node budget
+	// returns the tree grown so far
+	public static Node generateTreeGreedySplit(List<String> attributes, ColumnarDataset data, int[] rows,
+			TreeBuildConfig config, ForkJoinPool pool) {
+		return BuildPool.invoke(pool, TreeBuildTask.root(data, null, TreeBuildTask.SplitMode.GREEDY,
+				data.indicesOf(attributes), rows, config));
+	}
+
+	// Generates tree using histogram based split search on all instances of binned
+	// data set
+	public static Node generateTreeBinnedSplit(List<String> attributes, BinnedDataset binned, ForkJoinPool pool) {
+		return generateTreeBinnedSplit(attributes, binned, Utility.allRows(binned.getData().size()), pool);
+	}
+
+	// Generates tree using histogram based split search on specified rows. Split
+	// values limited to bin boundaries of each attribute
+	public static Node generateTreeBinnedSplit(List<String> attributes, BinnedDataset binned, int[] rows,
+			ForkJoinPool pool) {
+		return generateTreeBinnedSplit(attributes, binned, rows, TreeBuildConfig.DEFAULT, pool);
+	}
+
+	// Generates tree using histogram based split search on specified rows, grown
+	// within limits of config
+	public static Node generateTreeBinnedSplit(List<String> attributes, BinnedDataset binned, int[] rows,
+			TreeBuildConfig config, ForkJoinPool pool) {
+		ColumnarDataset data = binned.getData();
+		return BuildPool.invoke(pool, TreeBuildTask.root(data, binned, TreeBuildTask.SplitMode.BINNED,
+				data.indicesOf(attributes), rows, config));
+	}
 }
@@ -73,4 +73,112 @@ public class Utility {
 		return splitValues;
 	}
 
+	// Returns row indices 0..size-1. Used to consider all instances of a columnar
+	// data set
+	public static int[] allRows(int size) {
+		int[] rows = new int[size];
+		for (int i = 0; i < size; i++) {
+			rows[i] = i;
+		}
+		return rows;
+	}
+
+	// Returns count of instances for each class code in given rows
+	public static int[] classCounts(ColumnarDataset data, int[] rows) {
+		return classCounts(data, rows, 0, rows.length);
+	}
+
+	// Returns count of instances for each class code in rows[from..to)
+	public static int[] classCounts(ColumnarDataset data, int[] rows, int from, int to) {
+		int[] counts = new int[data.classCount()];
+		int[] classCodes = data.getClassCodes();
+		for (int i = from; i < to; i++) {
+			counts[classCodes[rows[i]]]++;
+		}
+		return counts;
+	}
+
+	// Returns number of class values with at least one instance
+	public static int presentClasses(int[] classCounts) {
+		int present = 0;
+		for (int count : classCounts) {
+			if (count > 0) {
+				present++;
+			}
+		}
+		return present;
+	}
+
+	// Returns class code with maximum count. On ties the higher class code wins, in
+	// line with stream max() over class weights. -1 if no instances present
+	public static int majorityClass(int[] classCounts) {
+		int majority = -1;
+		for (int code = 0; code < classCounts.length; code++) {
+			if (classCounts[code] > 0 && (majority == -1 || classCounts[code] >= classCounts[majority])) {
+				majority = code;
+			}
+		}
+		return majority;
+	}
+
+	// Reorder rows[from..to) in place, as in quick sort partitioning, so rows with
+	// attribute value <= splitVal come first. Returns index of first row with
+	// value > splitVal (or NaN). Order within each side is not kept
+	public static int partitionInPlace(ColumnarDataset data, int[] rows, int from, int to, int attribute,
+			double splitVal) {
+		double[] column = data.getColumn(attribute);
+		int left = from;
+		int right = to - 1;
+		while (true) {
+			while (left <= right && column[rows[left]] <= splitVal) {
+				left++;
+			}
+			while (left <= right && !(column[rows[right]] <= splitVal)) {
+				right--;
+			}
+			if (left >= right) {
+				return left;
+			}
+			int row = rows[left];
+			rows[left] = rows[right];
+			rows[right] = row;
+			left++;
+			right--;
+		}
+	}
+
+	// Partition rows 0..size-1 into k contiguous folds of size ceil(size/k). Last
+	// fold may be smaller
+	public static int[][] partitionRows(int size, int k) {
+		int partitionSize = (int) Math.ceil((double) size / (double) k);
+		int folds = partitionSize == 0 ? 0 : (int) Math.ceil((double) size / (double) partitionSize);
+		int[][] partitions = new int[folds][];
+		for (int i = 0; i < folds; i++) {
+			int from = i * partitionSize;
+			int to = Math.min(size, from + partitionSize);
+			partitions[i] = new int[to - from];
+			for (int row = from; row < to; row++) {
+				partitions[i][row - from] = row;
+			}
+		}
+		return partitions;
+	}
+
+	// Returns rows of all partitions other than the one at index excluded
+	public static int[] trainingRows(int[][] partitions, int excluded) {
+		int count = 0;
+		for (int i = 0; i < partitions.length; i++) {
+			count += i == excluded ? 0 : partitions[i].length;
+		}
+		int[] rows = new int[count];
+		int pos = 0;
+		for (int i = 0; i < partitions.length; i++) {
+			if (i != excluded) {
+				System.arraycopy(partitions[i], 0, rows, pos, partitions[i].length);
+				pos += partitions[i].length;
+			}
+		}
+		return rows;
+	}
+
 }
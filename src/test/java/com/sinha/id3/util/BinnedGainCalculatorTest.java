@@ -0,0 +1,62 @@
+package com.sinha.id3.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+// Histogram split search against exact search. With no more distinct values
+// than bins every exact candidate is a bin boundary, so both must agree
+public class BinnedGainCalculatorTest {
+
+	private final ColumnarDataset data = Fixtures.dataset(300, 11L);
+
+	@Test
+	public void binnedSplitMatchesExactWhenBinsCoverValues() throws Exception {
+		BinnedDataset binned = BinnedDataset.build(data, 32);
+		int[] rows = Utility.allRows(data.size());
+		for (int attribute = 0; attribute < data.attributeCount(); attribute++) {
+			SplitCandidate exact = new ColumnGainCalculator(data, rows, attribute).call();
+			SplitCandidate histogram = new BinnedGainCalculator(binned, rows, attribute).call();
+			assertEquals(exact.getSplitVal(), histogram.getSplitVal(), 0d);
+			assertEquals(exact.getGain(), histogram.getGain(), 1e-12);
+		}
+	}
+
+	@Test
+	public void binnedSplitIsCutWithGainAtMostExact() throws Exception {
+		BinnedDataset binned = BinnedDataset.build(data, 6);
+		int[] rows = Utility.allRows(data.size());
+		for (int attribute = 0; attribute < data.attributeCount(); attribute++) {
+			SplitCandidate exact = new ColumnGainCalculator(data, rows, attribute).call();
+			SplitCandidate histogram = new BinnedGainCalculator(binned, rows, attribute).call();
+			assertTrue(Arrays.stream(binned.getCuts(attribute)).anyMatch(cut -> cut == histogram.getSplitVal()));
+			assertTrue(histogram.getGain() <= exact.getGain() + 1e-12);
+		}
+	}
+
+	// Split values of deeper nodes may differ, as a bin boundary need not be the
+	// mid point of values left in a node, but rows are partitioned the same
+	@Test
+	public void binnedTreeClassifiesAsGreedyTreeWhenBinsCoverValues() {
+		ForkJoinPool pool = new ForkJoinPool(2);
+		try {
+			int[] rows = Utility.allRows(data.size());
+			TreeBuildConfig config = TreeBuildConfig.DEFAULT.withMinSamplesLeaf(3);
+			Node greedy = TreeUtility.generateTreeGreedySplit(Fixtures.ATTRIBUTES, data, rows, config, pool);
+			Node binned = TreeUtility.generateTreeBinnedSplit(Fixtures.ATTRIBUTES, BinnedDataset.build(data, 32),
+					rows, config, pool);
+			assertEquals(NodeUtility.splitCount(greedy), NodeUtility.splitCount(binned));
+			CompiledTree greedyTree = CompiledTree.compile(greedy, data);
+			CompiledTree binnedTree = CompiledTree.compile(binned, data);
+			for (int row = 0; row < data.size(); row++) {
+				assertEquals(greedyTree.predict(data, row), binnedTree.predict(data, row));
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+}
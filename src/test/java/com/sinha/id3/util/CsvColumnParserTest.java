@@ -0,0 +1,117 @@
+package com.sinha.id3.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+// Byte level parser against line by line ReadInput.readFile() and
+// Double.parseDouble()
+public class CsvColumnParserTest {
+
+	private Path file;
+
+	// readFile() parses with NumberFormat of default locale
+	private Locale locale;
+
+	@Before
+	public void setUp() throws IOException {
+		file = Files.createTempFile("csv-column-parser", ".csv");
+		locale = Locale.getDefault();
+		Locale.setDefault(Locale.US);
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		Locale.setDefault(locale);
+		Files.deleteIfExists(file);
+	}
+
+	@Test
+	public void parsesSameValuesAsReadFile() throws IOException {
+		Random random = new Random(3L);
+		StringBuilder csv = new StringBuilder();
+		for (int row = 0; row < 200; row++) {
+			csv.append(random.nextInt(3));
+			for (int i = 0; i < Fixtures.ATTRIBUTES.size(); i++) {
+				csv.append(',');
+				switch (random.nextInt(3)) {
+				case 0:
+					csv.append(random.nextInt(2001) - 1000);
+					break;
+				case 1:
+					csv.append(String.format(Locale.ROOT, "%.3f", random.nextDouble() * 200 - 100));
+					break;
+				default:
+					csv.append(String.format(Locale.ROOT, "%.9f", random.nextGaussian()));
+				}
+			}
+			csv.append('\n');
+		}
+		write(csv.toString());
+
+		ColumnarDataset data = CsvColumnParser.parse(file.toString(), Fixtures.ATTRIBUTES);
+		List<InputSet> inputList = ReadInput.readFile(file.toString(), Fixtures.ATTRIBUTES);
+		assertEquals(inputList.size(), data.size());
+		for (int row = 0; row < data.size(); row++) {
+			InputSet inputSet = inputList.get(row);
+			assertSameDouble(inputSet.getClassValue().doubleValue(), data.classValue(data.classCode(row)));
+			for (int i = 0; i < data.attributeCount(); i++) {
+				assertSameDouble(inputSet.getAttributeValues().get(data.getAttribute(i)).doubleValue(),
+						data.value(i, row));
+			}
+		}
+	}
+
+	// Mantissas around 2^53, exponents around 10^22 (largest exact power of ten),
+	// signs and long numbers, each on both sides of the fast path
+	@Test
+	public void fastPathEdgesParseAsParseDouble() throws IOException {
+		List<String> values = Arrays.asList("9007199254740991", "9007199254740992", "9007199254740993",
+				"9007199254740995", "900719925474099.3", "123456789012345678", "12345678901234567890.5", "1e22",
+				"1E23", "4.25e+22", "-7e23", "1.5e-22", "3e-23", "123456789e-22", "0.000000000000000000000123",
+				"+2.5", "+0", "-0", "-0.0", "+1e-5", "  42.125", "0.1", "1.7976931348623157E308", "4.9e-324");
+		StringBuilder csv = new StringBuilder();
+		for (String value : values) {
+			csv.append("0,").append(value).append('\n');
+		}
+		write(csv.toString());
+
+		ColumnarDataset data = CsvColumnParser.parse(file.toString(), Collections.singletonList("a"));
+		assertEquals(values.size(), data.size());
+		for (int row = 0; row < values.size(); row++) {
+			assertEquals(values.get(row), Double.doubleToLongBits(Double.parseDouble(values.get(row).trim())),
+					Double.doubleToLongBits(data.value(0, row)));
+		}
+	}
+
+	@Test
+	public void skipsBlankLines() throws IOException {
+		write("\n1,0.5,2\n\n\r\n2,-1,+3\r\n\n3,4e1,5");
+
+		ColumnarDataset data = CsvColumnParser.parse(file.toString(), Arrays.asList("a", "b"));
+		assertEquals(3, data.size());
+		assertEquals(3, data.classCount());
+		assertEquals(Arrays.toString(new double[] { 0.5, -1, 40 }), Arrays.toString(data.getColumn(0)));
+		assertEquals(Arrays.toString(new double[] { 2, 3, 5 }), Arrays.toString(data.getColumn(1)));
+	}
+
+	private void write(String csv) throws IOException {
+		Files.write(file, csv.getBytes(StandardCharsets.US_ASCII));
+	}
+
+	private static void assertSameDouble(double expected, double actual) {
+		assertEquals(Double.doubleToLongBits(expected), Double.doubleToLongBits(actual));
+	}
+}
@@ -0,0 +1,50 @@
+package com.sinha.id3.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+// Small data sets shared by tests
+final class Fixtures {
+
+	static final List<String> ATTRIBUTES = Arrays.asList("a0", "a1", "a2", "a3");
+
+	private Fixtures() {
+	}
+
+	// rows instances of ATTRIBUTES and 3 classes drawn from seed. Values are
+	// multiples of 0.25 in [0, 6) so attributes have many ties, class mostly
+	// follows a0 and a1 with some noise
+	static ColumnarDataset dataset(int rows, long seed) {
+		Random random = new Random(seed);
+		double[][] columns = new double[ATTRIBUTES.size()][rows];
+		int[] classCodes = new int[rows];
+		for (int row = 0; row < rows; row++) {
+			for (int i = 0; i < columns.length; i++) {
+				columns[i][row] = random.nextInt(24) / 4d;
+			}
+			int code = columns[0][row] < 2 ? 0 : columns[1][row] < 3 ? 1 : 2;
+			classCodes[row] = random.nextInt(10) == 0 ? random.nextInt(3) : code;
+		}
+		return new ColumnarDataset(ATTRIBUTES, columns, classCodes, new double[] { 1d, 2d, 3d });
+	}
+
+	// Same instances as InputSet list, as read by ReadInput.readFile()
+	static List<InputSet> inputSets(ColumnarDataset data) {
+		List<InputSet> inputList = new ArrayList<>();
+		for (int row = 0; row < data.size(); row++) {
+			Map<String, Number> attributeValues = new HashMap<>();
+			for (int i = 0; i < data.attributeCount(); i++) {
+				attributeValues.put(data.getAttribute(i), data.value(i, row));
+			}
+			InputSet inputSet = new InputSet();
+			inputSet.setClassValue(data.classValue(data.classCode(row)));
+			inputSet.setAttributeValues(attributeValues);
+			inputList.add(inputSet);
+		}
+		return inputList;
+	}
+}
@@ -0,0 +1,59 @@
+package com.sinha.id3.util;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Test;
+
+// Depth limited prefixes of a deep tree against trees built with that depth
+public class NodeUtilityTest {
+
+	private final ColumnarDataset data = Fixtures.dataset(400, 13L);
+
+	private final int[] rows = Utility.allRows(data.size());
+
+	private final ForkJoinPool pool = new ForkJoinPool(2);
+
+	@After
+	public void tearDown() {
+		pool.shutdown();
+	}
+
+	@Test
+	public void midPrefixMatchesDirectBuild() throws IOException {
+		Node deep = TreeUtility.generateTreeMidSplit(Fixtures.ATTRIBUTES, data, rows, 8, pool);
+		for (int depth = 1; depth <= 4; depth++) {
+			Node direct = TreeUtility.generateTreeMidSplit(Fixtures.ATTRIBUTES, data, rows, depth, pool);
+			assertArrayEquals("depth " + depth, bytes(direct), bytes(NodeUtility.prefix(deep, depth, data)));
+		}
+	}
+
+	@Test
+	public void greedyPrefixMatchesDirectBuild() throws IOException {
+		TreeBuildConfig config = TreeBuildConfig.DEFAULT.withMinSamplesLeaf(3);
+		Node deep = TreeUtility.generateTreeGreedySplit(Fixtures.ATTRIBUTES, data, rows, config, pool);
+		for (int depth = 1; depth <= 4; depth++) {
+			Node direct = TreeUtility.generateTreeGreedySplit(Fixtures.ATTRIBUTES, data, rows,
+					config.withMaxDepth(depth), pool);
+			assertArrayEquals("depth " + depth, bytes(direct), bytes(NodeUtility.prefix(deep, depth, data)));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void prefixRejectsDepthBelowOne() {
+		NodeUtility.prefix(TreeUtility.generateTreeMidSplit(Fixtures.ATTRIBUTES, data, rows, 2, pool), 0, data);
+	}
+
+	// Tree as written by writeTree(): split, leaf flag, class and majority codes
+	// of every node
+	private static byte[] bytes(Node tree) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		NodeUtility.writeTree(tree, new DataOutputStream(bytes));
+		return bytes.toByteArray();
+	}
+}
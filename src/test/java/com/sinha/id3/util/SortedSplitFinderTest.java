@@ -0,0 +1,74 @@
+package com.sinha.id3.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.junit.Test;
+
+// Sorted sweep against gain of each candidate split computed on its own
+public class SortedSplitFinderTest {
+
+	private final ColumnarDataset data = Fixtures.dataset(300, 7L);
+
+	@Test
+	public void bestSplitMatchesPerValueSearch() {
+		for (int attribute = 0; attribute < data.attributeCount(); attribute++) {
+			assertSameSplit(attribute, 1);
+		}
+	}
+
+	@Test
+	public void bestSplitWithMinLeafMatchesPerValueSearch() {
+		for (int attribute = 0; attribute < data.attributeCount(); attribute++) {
+			assertSameSplit(attribute, 40);
+		}
+	}
+
+	@Test
+	public void noSplitOnSingleValue() {
+		SplitCandidate split = SortedSplitFinder.findBestSplit(0, new double[] { 2d, 2d, 2d }, new int[] { 0, 1, 2 },
+				3);
+		assertFalse(split.isSplit());
+		assertEquals(SplitCandidate.NO_SPLIT, split.getGain(), 0d);
+	}
+
+	private void assertSameSplit(int attribute, int minLeaf) {
+		int[] rows = Utility.allRows(data.size());
+		SplitCandidate expected = perValueSearch(rows, attribute, minLeaf);
+		double[] values = data.getColumn(attribute).clone();
+		int[] codes = data.getClassCodes().clone();
+		SplitCandidate actual = SortedSplitFinder.findBestSplit(attribute, values, codes, values.length,
+				data.classCount(), minLeaf);
+		assertEquals("split of " + data.getAttribute(attribute), expected.getSplitVal(), actual.getSplitVal(), 0d);
+		assertEquals("gain of " + data.getAttribute(attribute), expected.getGain(), actual.getGain(), 1e-12);
+		assertEquals("candidates of " + data.getAttribute(attribute), expected.getCandidates(),
+				actual.getCandidates());
+	}
+
+	// Gain of every mid point between successive distinct values, each counted
+	// over all rows. Larger split value wins on equal gain
+	private SplitCandidate perValueSearch(int[] rows, int attribute, int minLeaf) {
+		double[] distinct = ColumnarDataset.distinctSorted(data.getColumn(attribute));
+		double entropy = EntropyUtil.calculateEntropy(Utility.classCounts(data, rows));
+		double bestGain = SplitCandidate.NO_SPLIT;
+		double bestSplit = Double.NaN;
+		int candidates = 0;
+		for (int i = 0; i < distinct.length - 1; i++) {
+			double splitVal = (distinct[i] + distinct[i + 1]) / 2;
+			int left = 0;
+			for (int row : rows) {
+				left += data.value(attribute, row) <= splitVal ? 1 : 0;
+			}
+			if (left < minLeaf || rows.length - left < minLeaf) {
+				continue;
+			}
+			candidates++;
+			double gain = EntropyUtil.gainBySplit(data, rows, attribute, splitVal, entropy);
+			if (gain >= bestGain) {
+				bestGain = gain;
+				bestSplit = splitVal;
+			}
+		}
+		return new SplitCandidate(attribute, bestSplit, bestGain, candidates);
+	}
+}
@@ -0,0 +1,88 @@
+package com.sinha.id3.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+// In place partitioning of row ranges against filtering rows into new arrays
+// and against partitionMap() over the same instances
+public class UtilityTest {
+
+	private final ColumnarDataset data = Fixtures.dataset(250, 5L);
+
+	@Test
+	public void partitionInPlaceMatchesFilter() {
+		for (int attribute = 0; attribute < data.attributeCount(); attribute++) {
+			for (double splitVal : new double[] { -1d, 0.5, 1.875, 3d, 5.75, 10d }) {
+				int[] rows = Utility.allRows(data.size());
+				int mid = Utility.partitionInPlace(data, rows, 0, rows.length, attribute, splitVal);
+				assertArrayEquals(filter(Utility.allRows(data.size()), attribute, splitVal, true),
+						sorted(rows, 0, mid));
+				assertArrayEquals(filter(Utility.allRows(data.size()), attribute, splitVal, false),
+						sorted(rows, mid, rows.length));
+			}
+		}
+	}
+
+	@Test
+	public void partitionInPlaceKeepsRowsOutsideRange() {
+		int[] rows = IntStream.range(0, data.size()).map(row -> data.size() - 1 - row).toArray();
+		int[] before = rows.clone();
+		int from = 40;
+		int to = 210;
+		int mid = Utility.partitionInPlace(data, rows, from, to, 1, 2.5);
+		assertArrayEquals(Arrays.copyOfRange(before, 0, from), Arrays.copyOfRange(rows, 0, from));
+		assertArrayEquals(Arrays.copyOfRange(before, to, rows.length), Arrays.copyOfRange(rows, to, rows.length));
+		int[] range = Arrays.copyOfRange(before, from, to);
+		assertArrayEquals(filter(range, 1, 2.5, true), sorted(rows, from, mid));
+		assertArrayEquals(filter(range, 1, 2.5, false), sorted(rows, mid, to));
+	}
+
+	@Test
+	public void partitionClassCountsMatchPartitionMap() {
+		Map<String, Map<Number, List<Number>>> partitioned = Utility.partitionMap(Fixtures.inputSets(data),
+				Fixtures.ATTRIBUTES);
+		for (int attribute = 0; attribute < data.attributeCount(); attribute++) {
+			double splitVal = 2.875;
+			int[] rows = Utility.allRows(data.size());
+			int mid = Utility.partitionInPlace(data, rows, 0, rows.length, attribute, splitVal);
+			int[] leftCounts = Utility.classCounts(data, rows, 0, mid);
+			int[] rightCounts = Utility.classCounts(data, rows, mid, rows.length);
+			for (int code = 0; code < data.classCount(); code++) {
+				List<Number> values = partitioned.get(data.getAttribute(attribute)).get(data.classValue(code));
+				long left = values.stream().filter(value -> value.doubleValue() <= splitVal).count();
+				assertEquals(left, leftCounts[code]);
+				assertEquals(values.size() - left, rightCounts[code]);
+			}
+		}
+	}
+
+	@Test
+	public void partitionInPlacePutsNaNRight() {
+		double[] column = { 1d, Double.NaN, 3d, Double.NaN, 0d };
+		ColumnarDataset withNaN = new ColumnarDataset(Arrays.asList("a"), new double[][] { column }, new int[5],
+				new double[] { 0d });
+		int[] rows = Utility.allRows(5);
+		int mid = Utility.partitionInPlace(withNaN, rows, 0, 5, 0, 2d);
+		assertEquals(2, mid);
+		assertArrayEquals(new int[] { 0, 4 }, sorted(rows, 0, mid));
+		assertArrayEquals(new int[] { 1, 2, 3 }, sorted(rows, mid, 5));
+	}
+
+	// Rows with value <= splitVal (left) or not (right), sorted
+	private int[] filter(int[] rows, int attribute, double splitVal, boolean left) {
+		return Arrays.stream(rows).filter(row -> data.value(attribute, row) <= splitVal == left).sorted().toArray();
+	}
+
+	private static int[] sorted(int[] rows, int from, int to) {
+		int[] range = Arrays.copyOfRange(rows, from, to);
+		Arrays.sort(range);
+		return range;
+	}
+}